@@ -50,19 +50,96 @@ class ArrayPersistenceDelegate extends kava.beans.PersistenceDelegate
         assert newInstance != null && newInstance.getClass().isArray() : newInstance;
 
         int length = Array.getLength(oldInstance);
-        Class<?> componentType = type.getComponentType();
-        Object nullValue = Array.get(Array.newInstance(componentType, 1), 0);
 
-        for (int i = 0; i < length; ++i) {
+        // one statement sets each differing element, or each run of them if
+        // the encoder writes runs in bulk
+        boolean bulk = out instanceof XMLEncoder
+                && ((XMLEncoder) out).isBulkArrayStatements();
+        int start = skip(oldInstance, newInstance, 0, true);
+        while (start < length) {
+            int end = bulk ? skip(oldInstance, newInstance, start + 1, false)
+                    : start + 1;
+            Object[] args = new Object[end - start + 1];
+            args[0] = Integer.valueOf(start);
+            for (int i = start; i < end; i++) {
+                args[i - start + 1] = Statement.getElement(oldInstance, i);
+            }
+            kava.beans.Statement s = new Statement(oldInstance, "set", args); //$NON-NLS-1$
+            out.writeStatement(s);
+            start = skip(oldInstance, newInstance, end, true);
+        }
+    }
 
-            Object oldValue = Array.get(oldInstance, i);
-            Object newValue = Array.get(newInstance, i);
-            if (!deepEquals(oldValue, newValue)) {
-                kava.beans.Statement s = new Statement(oldInstance, "set", //$NON-NLS-1$
-                                            new Object[] { Integer.valueOf(i), oldValue });
-                out.writeStatement(s);
+    /*
+     * Answers the index of the first element from the given one which is not
+     * equal (or not different if equal is false) in both arrays, or the
+     * length of the arrays. Primitive elements are compared without boxing
+     * them, like their wrappers would be compared.
+     */
+    private int skip(Object oldInstance, Object newInstance, int from,
+            boolean equal) {
+        int i = from;
+        if (oldInstance instanceof int[]) {
+            int[] oldArray = (int[]) oldInstance;
+            int[] newArray = (int[]) newInstance;
+            while (i < oldArray.length && (oldArray[i] == newArray[i]) == equal) {
+                i++;
+            }
+        } else if (oldInstance instanceof long[]) {
+            long[] oldArray = (long[]) oldInstance;
+            long[] newArray = (long[]) newInstance;
+            while (i < oldArray.length && (oldArray[i] == newArray[i]) == equal) {
+                i++;
+            }
+        } else if (oldInstance instanceof double[]) {
+            double[] oldArray = (double[]) oldInstance;
+            double[] newArray = (double[]) newInstance;
+            while (i < oldArray.length
+                    && (Double.doubleToLongBits(oldArray[i]) == Double
+                            .doubleToLongBits(newArray[i])) == equal) {
+                i++;
+            }
+        } else if (oldInstance instanceof float[]) {
+            float[] oldArray = (float[]) oldInstance;
+            float[] newArray = (float[]) newInstance;
+            while (i < oldArray.length
+                    && (Float.floatToIntBits(oldArray[i]) == Float
+                            .floatToIntBits(newArray[i])) == equal) {
+                i++;
+            }
+        } else if (oldInstance instanceof byte[]) {
+            byte[] oldArray = (byte[]) oldInstance;
+            byte[] newArray = (byte[]) newInstance;
+            while (i < oldArray.length && (oldArray[i] == newArray[i]) == equal) {
+                i++;
+            }
+        } else if (oldInstance instanceof short[]) {
+            short[] oldArray = (short[]) oldInstance;
+            short[] newArray = (short[]) newInstance;
+            while (i < oldArray.length && (oldArray[i] == newArray[i]) == equal) {
+                i++;
+            }
+        } else if (oldInstance instanceof char[]) {
+            char[] oldArray = (char[]) oldInstance;
+            char[] newArray = (char[]) newInstance;
+            while (i < oldArray.length && (oldArray[i] == newArray[i]) == equal) {
+                i++;
+            }
+        } else if (oldInstance instanceof boolean[]) {
+            boolean[] oldArray = (boolean[]) oldInstance;
+            boolean[] newArray = (boolean[]) newInstance;
+            while (i < oldArray.length && (oldArray[i] == newArray[i]) == equal) {
+                i++;
+            }
+        } else {
+            Object[] oldArray = (Object[]) oldInstance;
+            Object[] newArray = (Object[]) newInstance;
+            while (i < oldArray.length
+                    && deepEquals(oldArray[i], newArray[i]) == equal) {
+                i++;
             }
         }
+        return i;
     }
 
     private boolean deepEquals(Object oldInstance, Object newInstance) {
@@ -0,0 +1,43 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+/**
+ * A {@link PropertyChangeListener} which receives the changes made during a
+ * batch of a {@link PropertyChangeSupport} at once.
+ * <p>
+ * Outside of a batch the listener is notified of each change through
+ * {@link #propertyChange(PropertyChangeEvent)} like any other listener.
+ * </p>
+ * 
+ * @see PropertyChangeSupport#beginBatch()
+ */
+public interface BatchPropertyChangeListener extends PropertyChangeListener {
+
+    /**
+     * Notifies the listener of the changes made during a batch, one event
+     * per changed property with the value it had before the batch and its
+     * last value. Indexed changes and changes of unspecified properties are
+     * passed on as they were fired. Listeners registered for a single
+     * property only receive the events of that property.
+     * 
+     * @param events
+     *            the events in the order the properties were first changed.
+     */
+    void propertiesChanged(PropertyChangeEvent[] events);
+}
@@ -0,0 +1,321 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+
+/**
+ * The index of a bean class, generated at compile time for the classes marked
+ * with {@link BeanInfoIndexed}, or taken from a {@link BeanInfoSnapshot}.
+ * <p>
+ * The index is a UTF-8 text resource named after the binary name of the class
+ * with the {@link #SUFFIX} suffix, stored in the package of the class. The
+ * first line is the {@link #HEADER}, the optional line {@link #BOUND} tells
+ * that the class has public <code>addPropertyChangeListener</code> and
+ * <code>removePropertyChangeListener</code> methods, and each other line is
+ * a public declared method which may be an accessor or a listener method,
+ * written as its name followed by its JVM descriptor, for example
+ * <code>setName(Ljava/lang/String;)V</code>.
+ * </p>
+ */
+class BeanInfoIndex {
+
+    static final String SUFFIX = ".beaninfo"; //$NON-NLS-1$
+
+    static final String HEADER = "#kava.beans 1"; //$NON-NLS-1$
+
+    static final String BOUND = "bound"; //$NON-NLS-1$
+
+    private static final String[] PREFIXES = { "get", "is", "set", "add", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            "remove" }; //$NON-NLS-1$
+
+    private final boolean bound;
+
+    private final kava.beans.MethodDescriptor[] methods;
+
+    private BeanInfoIndex(boolean bound, kava.beans.MethodDescriptor[] methods) {
+        this.bound = bound;
+        this.methods = methods;
+    }
+
+    /**
+     * Returns whether the bean class can add and remove property change
+     * listeners, including through the methods it inherits.
+     */
+    boolean isBound() {
+        return bound;
+    }
+
+    /**
+     * Returns the public declared methods of the bean class which may be
+     * accessors or listener methods, or null if there are none.
+     */
+    kava.beans.MethodDescriptor[] getMethodDescriptors() {
+        return methods;
+    }
+
+    /**
+     * Loads the index of the given class, from its resource if the class is
+     * marked with {@link BeanInfoIndexed}, otherwise from the snapshot set in
+     * the <code>Introspector</code>.
+     * 
+     * @return the index, or null if the class is not indexed or its index is
+     *         missing or out of date.
+     */
+    static BeanInfoIndex load(Class<?> beanClass) {
+        BeanInfoIndex index = null;
+        if (beanClass.isAnnotationPresent(BeanInfoIndexed.class)) {
+            index = loadResource(beanClass);
+        }
+        if (index == null) {
+            BeanInfoSnapshot snapshot = Introspector.getSnapshot();
+            if (snapshot != null) {
+                index = snapshot.get(beanClass);
+            }
+        }
+        return index;
+    }
+
+    private static BeanInfoIndex loadResource(Class<?> beanClass) {
+        InputStream in = beanClass.getResourceAsStream(getResourceName(beanClass));
+        if (in == null) {
+            return null;
+        }
+        try {
+            return read(beanClass, new BufferedReader(new InputStreamReader(
+                    in, "UTF-8"))); //$NON-NLS-1$
+        } catch (IOException e) {
+            return null;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+
+    /**
+     * Reads an index and resolves its methods against the given class.
+     * 
+     * @return the index, or null if it does not match the class.
+     */
+    static BeanInfoIndex read(Class<?> beanClass, BufferedReader reader)
+            throws IOException {
+        if (!HEADER.equals(reader.readLine())) {
+            return null;
+        }
+        boolean bound = false;
+        ArrayList<kava.beans.MethodDescriptor> methods = new ArrayList<kava.beans.MethodDescriptor>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.length() == 0) {
+                continue;
+            }
+            if (BOUND.equals(line)) {
+                bound = true;
+                continue;
+            }
+            Method method = resolve(beanClass, line);
+            if (method == null) {
+                return null;
+            }
+            methods.add(new kava.beans.MethodDescriptor(method));
+        }
+        return new BeanInfoIndex(bound, methods.isEmpty() ? null : methods
+                .toArray(new kava.beans.MethodDescriptor[methods.size()]));
+    }
+
+    /**
+     * Creates the index of the given class by reflection, in the format read
+     * by {@link #read(Class, BufferedReader)}.
+     */
+    static String toText(Class<?> beanClass) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(HEADER).append('\n');
+        boolean canAdd = false;
+        boolean canRemove = false;
+        for (Method method : beanClass.getMethods()) {
+            Class<?>[] param = method.getParameterTypes();
+            if (param.length == 1 && param[0] == PropertyChangeListener.class) {
+                if (method.getName().equals("addPropertyChangeListener")) { //$NON-NLS-1$
+                    canAdd = true;
+                } else if (method.getName().equals(
+                        "removePropertyChangeListener")) { //$NON-NLS-1$
+                    canRemove = true;
+                }
+            }
+        }
+        if (canAdd && canRemove) {
+            sb.append(BOUND).append('\n');
+        }
+        for (Method method : beanClass.getDeclaredMethods()) {
+            if (Modifier.isPublic(method.getModifiers())
+                    && hasAccessorPrefix(method.getName())) {
+                sb.append(method.getName()).append(getDescriptor(method))
+                        .append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean hasAccessorPrefix(String name) {
+        for (String prefix : PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String getResourceName(Class<?> beanClass) {
+        String name = beanClass.getName();
+        return name.substring(name.lastIndexOf('.') + 1) + SUFFIX;
+    }
+
+    static String getDescriptor(Method method) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('(');
+        for (Class<?> type : method.getParameterTypes()) {
+            appendDescriptor(sb, type);
+        }
+        sb.append(')');
+        appendDescriptor(sb, method.getReturnType());
+        return sb.toString();
+    }
+
+    private static void appendDescriptor(StringBuilder sb, Class<?> type) {
+        while (type.isArray()) {
+            sb.append('[');
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            sb.append(getPrimitiveDescriptor(type));
+        } else {
+            sb.append('L').append(type.getName().replace('.', '/')).append(';');
+        }
+    }
+
+    private static char getPrimitiveDescriptor(Class<?> type) {
+        if (type == boolean.class) {
+            return 'Z';
+        } else if (type == byte.class) {
+            return 'B';
+        } else if (type == char.class) {
+            return 'C';
+        } else if (type == short.class) {
+            return 'S';
+        } else if (type == int.class) {
+            return 'I';
+        } else if (type == long.class) {
+            return 'J';
+        } else if (type == float.class) {
+            return 'F';
+        } else if (type == double.class) {
+            return 'D';
+        }
+        return 'V';
+    }
+
+    /*
+     * Finds the public declared method written in the line, or returns null
+     * if the class does not declare it any more.
+     */
+    private static Method resolve(Class<?> beanClass, String line) {
+        int paren = line.indexOf('(');
+        int end = line.indexOf(')', paren);
+        if (paren <= 0 || end < 0) {
+            return null;
+        }
+        String descriptor = line.substring(paren);
+        ArrayList<Class<?>> parameterTypes = new ArrayList<Class<?>>();
+        try {
+            int i = paren + 1;
+            while (i < end) {
+                int next = i;
+                while (line.charAt(next) == '[') {
+                    next++;
+                }
+                if (line.charAt(next) == 'L') {
+                    next = line.indexOf(';', next);
+                }
+                next++;
+                parameterTypes.add(toClass(line.substring(i, next), beanClass
+                        .getClassLoader()));
+                i = next;
+            }
+            String name = line.substring(0, paren);
+            Method method = beanClass.getDeclaredMethod(name, parameterTypes
+                    .toArray(new Class<?>[parameterTypes.size()]));
+            if (!descriptor.equals(getDescriptor(method))) {
+                // a bridge method with the same parameters
+                method = null;
+                for (Method declared : beanClass.getDeclaredMethods()) {
+                    if (declared.getName().equals(name)
+                            && descriptor.equals(getDescriptor(declared))) {
+                        method = declared;
+                        break;
+                    }
+                }
+            }
+            if (method == null || !Modifier.isPublic(method.getModifiers())) {
+                return null;
+            }
+            return method;
+        } catch (Exception e) {
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    private static Class<?> toClass(String descriptor, ClassLoader loader)
+            throws ClassNotFoundException {
+        switch (descriptor.charAt(0)) {
+        case 'Z':
+            return boolean.class;
+        case 'B':
+            return byte.class;
+        case 'C':
+            return char.class;
+        case 'S':
+            return short.class;
+        case 'I':
+            return int.class;
+        case 'J':
+            return long.class;
+        case 'F':
+            return float.class;
+        case 'D':
+            return double.class;
+        case 'L':
+            return Class.forName(descriptor.substring(1,
+                    descriptor.length() - 1).replace('/', '.'), false, loader);
+        case '[':
+            return Class.forName(descriptor.replace('/', '.'), false, loader);
+        default:
+            throw new ClassNotFoundException(descriptor);
+        }
+    }
+}
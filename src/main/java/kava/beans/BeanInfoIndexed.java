@@ -0,0 +1,46 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean class for which a <code>BeanInfo</code> index is generated at
+ * compile time by <code>kava.beans.processor.BeanInfoIndexProcessor</code>.
+ * <p>
+ * The index lists the public methods of the class which may be property
+ * accessors or event listener registration methods. The
+ * <code>Introspector</code> reads it instead of reflecting over all the
+ * declared methods of the class, and falls back to reflection when the index
+ * is missing or does not match the class. Compiler generated bridge methods
+ * are not part of the index.
+ * </p>
+ * <p>
+ * The index is stored as a resource next to the class file, so the package
+ * of a bean class in a named module must be open for the index to be found.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface BeanInfoIndexed {
+}
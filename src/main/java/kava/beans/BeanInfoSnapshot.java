@@ -0,0 +1,321 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A memory mapped file with the {@link BeanInfoIndex} of many bean classes,
+ * so that they do not need to be reflected over again after a restart.
+ * <p>
+ * The file starts with the {@link #MAGIC} number, the {@link #VERSION}, the
+ * BeanInfo search path and the number of entries. Each entry holds the length
+ * and the UTF-8 bytes of the class name, the stamp of the file the class was
+ * loaded from, the flags of the entry and the length and the UTF-8 bytes of
+ * the index text. Only the names are read when the file is opened, an entry
+ * is decoded and checked against the live class when the class is
+ * introspected.
+ * </p>
+ * <p>
+ * The stamp is the last modification time and the length of the class file
+ * and the last modification time of the directory holding it, or the last
+ * modification time and the length of the jar file holding the class, so
+ * checking an entry costs a file status instead of reading the class. The
+ * classes of the runtime are stamped with its version. Classes loaded from
+ * elsewhere are not put in snapshots.
+ * </p>
+ * <p>
+ * The {@link #NO_EXPLICIT_BEANINFO} flag records that no explicit
+ * <code>BeanInfo</code> class was found for the class, so that the
+ * <code>Introspector</code> does not try to load one again. It is only
+ * trusted while the search path is the one the snapshot was written with, and
+ * a <code>BeanInfo</code> class added next to the bean class changes the
+ * stamp, but one added to another directory or jar file is not noticed until
+ * the snapshot is written again.
+ * </p>
+ */
+class BeanInfoSnapshot {
+
+    static final int MAGIC = 0x4B424953;
+
+    static final int VERSION = 2;
+
+    /*
+     * The flag of the entries of classes which have no explicit BeanInfo
+     */
+    static final int NO_EXPLICIT_BEANINFO = 1;
+
+    // The number of longs in a stamp
+    private static final int STAMP_LENGTH = 3;
+
+    private static final String UTF_8 = "UTF-8"; //$NON-NLS-1$
+
+    /*
+     * The stamp of the file each class was loaded from, or null if it was not
+     * loaded from a file, which does not change for a loaded class
+     */
+    private static final ClassValue<long[]> stamps = new ClassValue<long[]>() {
+        @Override
+        protected long[] computeValue(Class<?> type) {
+            return computeStamp(type);
+        }
+    };
+
+    private final MappedByteBuffer buffer;
+
+    // The BeanInfo search path the snapshot was written with
+    private final String[] searchPath;
+
+    // The offset of the stamp of each entry, by class name
+    private final HashMap<String, Integer> offsets;
+
+    // The number of classes whose index was taken from the snapshot
+    private final AtomicLong hits = new AtomicLong();
+
+    private BeanInfoSnapshot(MappedByteBuffer buffer, String[] searchPath,
+            HashMap<String, Integer> offsets) {
+        this.buffer = buffer;
+        this.searchPath = searchPath;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Maps the given snapshot file into memory.
+     * 
+     * @throws IOException
+     *             if the file cannot be read or is not a snapshot.
+     */
+    static BeanInfoSnapshot open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r"); //$NON-NLS-1$
+        MappedByteBuffer buffer;
+        try {
+            FileChannel channel = raf.getChannel();
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel
+                    .size());
+        } finally {
+            raf.close();
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a BeanInfo snapshot: " + file); //$NON-NLS-1$
+            }
+            String[] searchPath = new String[buffer.getInt()];
+            for (int i = 0; i < searchPath.length; i++) {
+                searchPath[i] = getString(buffer);
+            }
+            int count = buffer.getInt();
+            HashMap<String, Integer> offsets = new HashMap<String, Integer>(
+                    count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                String name = getString(buffer);
+                offsets.put(name, Integer.valueOf(buffer.position()));
+                buffer.position(buffer.position() + STAMP_LENGTH * 8 + 4);
+                int length = buffer.getInt();
+                buffer.position(buffer.position() + length);
+            }
+            return new BeanInfoSnapshot(buffer, searchPath, offsets);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException or IllegalArgumentException
+            throw new IOException("Corrupt BeanInfo snapshot: " + file); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Writes a snapshot with the index of the given classes, and whether they
+     * have an explicit <code>BeanInfo</code> with the current search path.
+     * The classes which were not loaded from a file are left out.
+     */
+    static void write(File file, Collection<? extends Class<?>> beanClasses)
+            throws IOException {
+        String[] searchPath = Introspector.getBeanInfoSearchPath();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int count = 0;
+        for (Class<?> beanClass : beanClasses) {
+            long[] stamp = stamps.get(beanClass);
+            if (stamp == null) {
+                continue;
+            }
+            putString(out, beanClass.getName());
+            for (long value : stamp) {
+                out.writeLong(value);
+            }
+            out.writeInt(Introspector.getExplicitBeanInfo(beanClass) == null
+                    ? NO_EXPLICIT_BEANINFO : 0);
+            putString(out, BeanInfoIndex.toText(beanClass));
+            count++;
+        }
+        out.flush();
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            DataOutputStream header = new DataOutputStream(fos);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(searchPath.length);
+            for (String element : searchPath) {
+                putString(header, element);
+            }
+            header.writeInt(count);
+            bytes.writeTo(header);
+            header.flush();
+        } finally {
+            fos.close();
+        }
+    }
+
+    /**
+     * Returns the number of classes whose index was taken from the snapshot.
+     */
+    long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the index of the given class.
+     * 
+     * @return the index, or null if the class is not in the snapshot or has
+     *         changed since the snapshot was written.
+     */
+    BeanInfoIndex get(Class<?> beanClass) {
+        ByteBuffer entry = getEntry(beanClass);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            entry.getInt();
+            BeanInfoIndex index = BeanInfoIndex.read(beanClass,
+                    new BufferedReader(new StringReader(getString(entry))));
+            if (index != null) {
+                hits.incrementAndGet();
+            }
+            return index;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Answers whether the snapshot records that the given class has no
+     * explicit <code>BeanInfo</code> with the given search path.
+     */
+    boolean lacksExplicitBeanInfo(Class<?> beanClass, String[] path) {
+        if (!Arrays.equals(searchPath, path)) {
+            return false;
+        }
+        ByteBuffer entry = getEntry(beanClass);
+        return entry != null
+                && (entry.getInt() & NO_EXPLICIT_BEANINFO) != 0;
+    }
+
+    /*
+     * Answers the entry of the given class positioned after its stamp, or
+     * null if the class is not in the snapshot or has changed since.
+     */
+    private ByteBuffer getEntry(Class<?> beanClass) {
+        Integer offset = offsets.get(beanClass.getName());
+        if (offset == null) {
+            return null;
+        }
+        long[] stamp = stamps.get(beanClass);
+        if (stamp == null) {
+            return null;
+        }
+        // the position of the shared buffer must not be moved
+        ByteBuffer entry = buffer.duplicate();
+        entry.position(offset.intValue());
+        for (long value : stamp) {
+            if (entry.getLong() != value) {
+                return null;
+            }
+        }
+        return entry;
+    }
+
+    /*
+     * Answers the last modification time and the length of the class file or
+     * jar file the class was loaded from, and of the directory holding the
+     * class file, or null if there is no such file.
+     */
+    private static long[] computeStamp(Class<?> beanClass) {
+        try {
+            CodeSource source = beanClass.getProtectionDomain()
+                    .getCodeSource();
+            URL location = (source == null) ? null : source.getLocation();
+            if (beanClass.getClassLoader() == null || location != null
+                    && "jrt".equals(location.getProtocol())) { //$NON-NLS-1$
+                // the classes of the runtime change with its version only
+                String version = System.getProperty("java.runtime.version"); //$NON-NLS-1$
+                return new long[] { 0, version == null ? 0 : version.hashCode(),
+                        0 };
+            }
+            if (location == null || !"file".equals(location.getProtocol())) { //$NON-NLS-1$
+                return null;
+            }
+            File file = new File(location.toURI());
+            long directory = 0;
+            if (file.isDirectory()) {
+                file = new File(file, beanClass.getName().replace('.',
+                        File.separatorChar)
+                        + ".class"); //$NON-NLS-1$
+                // a BeanInfo class added next to it changes the directory
+                directory = file.getParentFile().lastModified();
+            }
+            if (!file.isFile()) {
+                return null;
+            }
+            return new long[] { file.lastModified(), file.length(), directory };
+        } catch (SecurityException e) {
+            return null;
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            // not a hierarchical file URI
+            return null;
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void putString(DataOutputStream out, String value)
+            throws IOException {
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -21,7 +21,6 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.HashMap;
 
 /**
  * Default PersistenceDelegate for normal classes. The instances of this class
@@ -187,21 +186,22 @@ public class DefaultPersistenceDelegate extends kava.beans.PersistenceDelegate
     /*
      * Get the value for the specified property of the given bean instance.
      */
-    private Object getPropertyValue(HashMap<String, kava.beans.PropertyDescriptor> proDscMap, Object oldInstance,
+    private Object getPropertyValue(kava.beans.BeanInfo info, Object oldInstance,
             String propName) throws Exception {
         // Try to get the read method for the property
-        Method getter = null;
-        if (null != proDscMap) {
-            kava.beans.PropertyDescriptor pd = proDscMap
-                    .get(kava.beans.Introspector.decapitalize(propName));
+        PropertyAccessor accessor = null;
+        if (null != info) {
+            kava.beans.PropertyDescriptor pd = StandardBeanInfo
+                    .findPropertyDescriptor(info, kava.beans.Introspector
+                            .decapitalize(propName));
             if (null != pd) {
-                getter = pd.getReadMethod();
+                accessor = pd.getAccessor();
             }
         }
 
         // Invoke read method to get the value if found
-        if (null != getter) {
-            return getter.invoke(oldInstance, (Object[]) null);
+        if (null != accessor && accessor.isReadable()) {
+            return accessor.get(oldInstance);
         }
 
         // Otherwise, try to access the field directly
@@ -236,11 +236,9 @@ public class DefaultPersistenceDelegate extends kava.beans.PersistenceDelegate
         if (this.propertyNames.length > 0) {
             // Prepare the property descriptors for finding getter method later
             BeanInfo info = null;
-            HashMap<String, kava.beans.PropertyDescriptor> proDscMap = null;
             try {
                 info = kava.beans.Introspector.getBeanInfo(oldInstance.getClass(),
                         Introspector.IGNORE_ALL_BEANINFO);
-                proDscMap = internalAsMap(info.getPropertyDescriptors());
             } catch (IntrospectionException ex) {
                 enc.getExceptionListener().exceptionThrown(ex);
                 throw new Error(ex);
@@ -256,7 +254,7 @@ public class DefaultPersistenceDelegate extends kava.beans.PersistenceDelegate
 
                 // Get the value for each property of the given instance
                 try {
-                    args[i] = getPropertyValue(proDscMap, oldInstance,
+                    args[i] = getPropertyValue(info, oldInstance,
                             this.propertyNames[i]);
                 } catch (Exception ex) {
                     enc.getExceptionListener().exceptionThrown(ex);
@@ -268,15 +266,6 @@ public class DefaultPersistenceDelegate extends kava.beans.PersistenceDelegate
                 Statement.CONSTRUCTOR_NAME, args);
     }
 
-    private static HashMap<String, kava.beans.PropertyDescriptor> internalAsMap(
-            kava.beans.PropertyDescriptor[] propertyDescs) {
-        HashMap<String, kava.beans.PropertyDescriptor> map = new HashMap<String, PropertyDescriptor>();
-        for (int i = 0; i < propertyDescs.length; i++) {
-            map.put(propertyDescs[i].getName(), propertyDescs[i]);
-        }
-        return map;
-    }
-
     /**
      * Determines whether one object mutates to the other object. If this
      * <code>DefaultPersistenceDelegate</code> is constructed with one or more
@@ -0,0 +1,235 @@
+/* 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package kava.beans;
+
+import java.util.Collections;
+import java.util.EventListener;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how a {@link PropertyChangeSupport} or a
+ * {@link VetoableChangeSupport} dispatches its changes: how often each
+ * property is fired, how many listeners are notified, and how long the
+ * listeners of each class take. The supports record nothing unless an
+ * instance is installed with <code>setDispatchMetrics</code>; one instance
+ * may be shared by several supports to aggregate them.
+ * <p>
+ * The latencies are kept in histograms of 64 buckets, bucket <code>i</code>
+ * counting the notifications which took from <code>2^(i-1)</code> up to
+ * <code>2^i - 1</code> nanoseconds, bucket 0 the ones which took no
+ * measurable time.
+ * </p>
+ * 
+ * @see PropertyChangeSupport#setDispatchMetrics(DispatchMetrics)
+ * @see VetoableChangeSupport#setDispatchMetrics(DispatchMetrics)
+ */
+public class DispatchMetrics {
+
+    private static final int BUCKETS = 64;
+
+    private final ConcurrentHashMap<String, Counters> properties = new ConcurrentHashMap<String, Counters>();
+
+    // the changes of unspecified properties, which can not be map keys
+    private final Counters unnamed = new Counters();
+
+    private final Map<Class<?>, AtomicLongArray> histograms = Collections
+            .synchronizedMap(new WeakHashMap<Class<?>, AtomicLongArray>());
+
+    /*
+     * The histograms of the listener classes, found without locking on each
+     * notification. The classes are not kept from being unloaded, so they are
+     * listed weakly above for the snapshots.
+     */
+    private final ClassValue<AtomicLongArray> latencies = new ClassValue<AtomicLongArray>() {
+        @Override
+        protected AtomicLongArray computeValue(Class<?> type) {
+            AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+            histograms.put(type, histogram);
+            return histogram;
+        }
+    };
+
+    /**
+     * Records that a change of the property was fired to the given number of
+     * listeners.
+     */
+    void recordFire(String propertyName, int listeners) {
+        Counters counters = unnamed;
+        if (propertyName != null) {
+            counters = properties.get(propertyName);
+            if (counters == null) {
+                Counters newCounters = new Counters();
+                counters = properties.putIfAbsent(propertyName, newCounters);
+                if (counters == null) {
+                    counters = newCounters;
+                }
+            }
+        }
+        counters.fires.increment();
+        counters.notifications.add(listeners);
+    }
+
+    /**
+     * Records the time a listener took to handle a change.
+     */
+    void recordLatency(EventListener listener, long nanos) {
+        AtomicLongArray histogram = latencies.get(getListenerClass(listener));
+        int bucket = (nanos <= 0) ? 0 : BUCKETS - Long.numberOfLeadingZeros(nanos);
+        histogram.incrementAndGet(bucket);
+    }
+
+    /*
+     * Answers the class of the listener as it was registered, not the one of
+     * the proxy or reference wrapping it.
+     */
+    private static Class<?> getListenerClass(EventListener listener) {
+        EventListener unwrapped = listener;
+        if (unwrapped instanceof ReferenceListener) {
+            unwrapped = ((ReferenceListener) unwrapped).get();
+        }
+        if (unwrapped instanceof java.util.EventListenerProxy) {
+            unwrapped = ((java.util.EventListenerProxy<?>) unwrapped).getListener();
+        }
+        return (unwrapped == null) ? listener.getClass() : unwrapped.getClass();
+    }
+
+    /**
+     * Answers a copy of the recorded values. The values recorded while the
+     * copy is made may or may not be part of it.
+     * 
+     * @return the recorded values.
+     */
+    public Snapshot snapshot() {
+        HashMap<String, Long> fires = new HashMap<String, Long>();
+        HashMap<String, Long> notifications = new HashMap<String, Long>();
+        for (Map.Entry<String, Counters> entry : properties.entrySet()) {
+            fires.put(entry.getKey(), Long.valueOf(entry.getValue().fires.sum()));
+            notifications.put(entry.getKey(), Long.valueOf(entry.getValue().notifications.sum()));
+        }
+        long unnamedFires = unnamed.fires.sum();
+        if (unnamedFires > 0) {
+            fires.put(null, Long.valueOf(unnamedFires));
+            notifications.put(null, Long.valueOf(unnamed.notifications.sum()));
+        }
+        HashMap<Class<?>, long[]> counts = new HashMap<Class<?>, long[]>();
+        synchronized (histograms) {
+            for (Map.Entry<Class<?>, AtomicLongArray> entry : histograms
+                    .entrySet()) {
+                AtomicLongArray histogram = entry.getValue();
+                long[] buckets = new long[BUCKETS];
+                for (int i = 0; i < BUCKETS; i++) {
+                    buckets[i] = histogram.get(i);
+                }
+                counts.put(entry.getKey(), buckets);
+            }
+        }
+        return new Snapshot(fires, notifications, counts);
+    }
+
+    /**
+     * Discards the recorded values.
+     */
+    public void reset() {
+        properties.clear();
+        unnamed.fires.reset();
+        unnamed.notifications.reset();
+        synchronized (histograms) {
+            for (Class<?> listenerClass : histograms.keySet()) {
+                latencies.remove(listenerClass);
+            }
+            histograms.clear();
+        }
+    }
+
+    private static final class Counters {
+
+        final LongAdder fires = new LongAdder();
+
+        final LongAdder notifications = new LongAdder();
+    }
+
+    /**
+     * The values recorded by a {@link DispatchMetrics} at some point. The
+     * changes of unspecified properties are reported under the
+     * <code>null</code> name.
+     */
+    public static final class Snapshot {
+
+        private final Map<String, Long> fires;
+
+        private final Map<String, Long> notifications;
+
+        private final Map<Class<?>, long[]> histograms;
+
+        Snapshot(Map<String, Long> fires, Map<String, Long> notifications,
+                Map<Class<?>, long[]> histograms) {
+            this.fires = Collections.unmodifiableMap(fires);
+            this.notifications = Collections.unmodifiableMap(notifications);
+            this.histograms = histograms;
+        }
+
+        /**
+         * Answers the number of changes fired for each property.
+         * 
+         * @return an unmodifiable map from property names to counts.
+         */
+        public Map<String, Long> getFireCounts() {
+            return fires;
+        }
+
+        /**
+         * Answers the number of listener notifications for each property,
+         * summed over all the fired changes.
+         * 
+         * @return an unmodifiable map from property names to counts.
+         */
+        public Map<String, Long> getListenerCounts() {
+            return notifications;
+        }
+
+        /**
+         * Answers the number of changes fired for the property.
+         * 
+         * @param propertyName
+         *            the name of the property, null for unspecified ones.
+         * @return the number of fired changes, 0 if none.
+         */
+        public long getFireCount(String propertyName) {
+            Long count = fires.get(propertyName);
+            return (count == null) ? 0 : count.longValue();
+        }
+
+        /**
+         * Answers the latency histogram of each listener class, see
+         * {@link DispatchMetrics} for its buckets.
+         * 
+         * @return a new map from listener classes to bucket counts.
+         */
+        public Map<Class<?>, long[]> getLatencyHistograms() {
+            HashMap<Class<?>, long[]> result = new HashMap<Class<?>, long[]>();
+            for (Map.Entry<Class<?>, long[]> entry : histograms.entrySet()) {
+                result.put(entry.getKey(), entry.getValue().clone());
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+/**
+ * A {@link PropertyChangeEvent} of a <code>double</code> property, fired by
+ * {@link PropertyChangeSupport#fireDoublePropertyChange(String, double, double)}.
+ * <p>
+ * The values are kept as primitives and are only boxed when
+ * {@link #getOldValue()} or {@link #getNewValue()} is called, listeners
+ * which know the type of the property read them with
+ * {@link #getDoubleOldValue()} and {@link #getDoubleNewValue()} instead.
+ * </p>
+ */
+public class DoublePropertyChangeEvent extends PropertyChangeEvent {
+
+    private static final long serialVersionUID = 6177413602553926284L;
+
+    private final double oldDouble;
+
+    private final double newDouble;
+
+    /**
+     * Creates a property change event of a <code>double</code> property.
+     * 
+     * @param source
+     *            the changed bean.
+     * @param propertyName
+     *            the changed property.
+     * @param oldValue
+     *            the previous value of the property.
+     * @param newValue
+     *            the new value of the property.
+     */
+    public DoublePropertyChangeEvent(Object source, String propertyName,
+            double oldValue, double newValue) {
+        super(source, propertyName, null, null);
+        this.oldDouble = oldValue;
+        this.newDouble = newValue;
+    }
+
+    /**
+     * Returns the previous value of the property without boxing it.
+     */
+    public double getDoubleOldValue() {
+        return oldDouble;
+    }
+
+    /**
+     * Returns the new value of the property without boxing it.
+     */
+    public double getDoubleNewValue() {
+        return newDouble;
+    }
+
+    @Override
+    public Object getOldValue() {
+        // boxed on first use, a race only boxes the value twice
+        Object value = oldValue;
+        if (value == null) {
+            value = Double.valueOf(oldDouble);
+            oldValue = value;
+        }
+        return value;
+    }
+
+    @Override
+    public Object getNewValue() {
+        Object value = newValue;
+        if (value == null) {
+            value = Double.valueOf(newDouble);
+            newValue = value;
+        }
+        return value;
+    }
+}
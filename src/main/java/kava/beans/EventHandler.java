@@ -205,10 +205,10 @@ public class EventHandler implements InvocationHandler {
                         propertyName);
 
                 if (pd != null) {
-                    Method getter = pd.getReadMethod();
+                    PropertyAccessor accessor = pd.getAccessor();
 
-                    if (getter != null) {
-                        arg = getter.invoke(arg, new Object[] {});
+                    if (accessor.isReadable()) {
+                        arg = accessor.get(arg);
                     } else {
                         throw new kava.beans.IntrospectionException(Messages.getString(
                                 "beans.11", propertyName)); //$NON-NLS-1$
@@ -299,17 +299,8 @@ public class EventHandler implements InvocationHandler {
     private kava.beans.PropertyDescriptor findPropertyDescriptor(Class<?> theClass,
             String propertyName) throws IntrospectionException
 	{
-        kava.beans.PropertyDescriptor result = null;
         BeanInfo beanInfo = kava.beans.Introspector.getBeanInfo(theClass);
-        kava.beans.PropertyDescriptor[] pds = beanInfo.getPropertyDescriptors();
-
-        for (PropertyDescriptor element : pds) {
-            if (element.getName().equals(propertyName)) {
-                result = element;
-                break;
-            }
-        }
-        return result;
+        return StandardBeanInfo.findPropertyDescriptor(beanInfo, propertyName);
     }
 
     private Method findStaticGetter(Class<?> theClass, String propertyName) {
@@ -190,6 +190,21 @@ public class EventSetDescriptor extends FeatureDescriptor
         }
     }
 
+    EventSetDescriptor(EventSetDescriptor descriptor) {
+        super(descriptor);
+        this.listenerType = descriptor.listenerType;
+        if (descriptor.listenerMethodDescriptors != null) {
+            this.listenerMethodDescriptors = new ArrayList<kava.beans.MethodDescriptor>(
+                    descriptor.listenerMethodDescriptors);
+        }
+        this.listenerMethods = descriptor.listenerMethods;
+        this.getListenerMethod = descriptor.getListenerMethod;
+        this.addListenerMethod = descriptor.addListenerMethod;
+        this.removeListenerMethod = descriptor.removeListenerMethod;
+        this.unicast = descriptor.unicast;
+        this.inDefaultEventSet = descriptor.inDefaultEventSet;
+    }
+
     // ensures that there is no nulls
     @SuppressWarnings("nls")
     private void checkNotNull(Object sourceClass, Object eventSetName,
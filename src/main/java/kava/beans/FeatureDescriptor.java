@@ -47,6 +47,20 @@ public class FeatureDescriptor {
         this.values = new HashMap<String, Object>();
     }
 
+    /*
+     * Copy constructor, the copy does not share any mutable state with the
+     * given descriptor.
+     */
+    FeatureDescriptor(FeatureDescriptor feature) {
+        this.values = new HashMap<String, Object>(feature.values);
+        this.preferred = feature.preferred;
+        this.hidden = feature.hidden;
+        this.expert = feature.expert;
+        this.shortDescription = feature.shortDescription;
+        this.name = feature.name;
+        this.displayName = feature.displayName;
+    }
+
     /**
      * <p>
      * Sets the value for the named attribute.
@@ -0,0 +1,322 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import kava.beans.internal.Messages;
+
+/**
+ * Reads and writes the elements of an indexed property of beans through
+ * method handles. It is obtained from
+ * {@link IndexedPropertyDescriptor#getAccessor()}, and also gives access to
+ * the property as a whole through the methods of {@link PropertyAccessor}.
+ */
+public class IndexedPropertyAccessor extends PropertyAccessor {
+
+    private final Method indexedReadMethod;
+
+    private final Method indexedWriteMethod;
+
+    // the element type of the indexed write method
+    private final Class<?> indexedWriteType;
+
+    /*
+     * The handles adapted once to the fixed shapes called with invokeExact,
+     * (Object,int)Object and (Object,int,Object)void, then one per primitive
+     * type. They are null if there is no such method or the type of the
+     * elements cannot be converted.
+     */
+    private final MethodHandle indexedGetter;
+
+    private final MethodHandle indexedIntGetter;
+
+    private final MethodHandle indexedLongGetter;
+
+    private final MethodHandle indexedDoubleGetter;
+
+    private final MethodHandle indexedBooleanGetter;
+
+    private final MethodHandle indexedSetter;
+
+    private final MethodHandle indexedIntSetter;
+
+    private final MethodHandle indexedLongSetter;
+
+    private final MethodHandle indexedDoubleSetter;
+
+    private final MethodHandle indexedBooleanSetter;
+
+    IndexedPropertyAccessor(Method readMethod, Method writeMethod,
+            Method indexedReadMethod, Method indexedWriteMethod) {
+        super(readMethod, writeMethod);
+        this.indexedReadMethod = indexedReadMethod;
+        this.indexedWriteMethod = indexedWriteMethod;
+        this.indexedWriteType = indexedWriteMethod == null ? null
+                : indexedWriteMethod.getParameterTypes()[1];
+        MethodHandle read = indexedReadMethod == null ? null
+                : toHandle(indexedReadMethod);
+        this.indexedGetter = adaptGetter(read, Object.class);
+        this.indexedIntGetter = adaptGetter(read, int.class);
+        this.indexedLongGetter = adaptGetter(read, long.class);
+        this.indexedDoubleGetter = adaptGetter(read, double.class);
+        this.indexedBooleanGetter = adaptGetter(read, boolean.class);
+        MethodHandle write = indexedWriteMethod == null ? null
+                : toHandle(indexedWriteMethod);
+        this.indexedSetter = adaptSetter(write, Object.class);
+        this.indexedIntSetter = adaptSetter(write, int.class);
+        this.indexedLongSetter = adaptSetter(write, long.class);
+        this.indexedDoubleSetter = adaptSetter(write, double.class);
+        this.indexedBooleanSetter = adaptSetter(write, boolean.class);
+    }
+
+    /**
+     * Returns whether the elements of the property can be read.
+     */
+    public boolean isIndexedReadable() {
+        return indexedGetter != null;
+    }
+
+    /**
+     * Returns whether the elements of the property can be written.
+     */
+    public boolean isIndexedWritable() {
+        return indexedSetter != null;
+    }
+
+    /**
+     * Reads an element of the property of the given bean.
+     * 
+     * @param bean
+     *            the bean to read the property of.
+     * @param index
+     *            the index of the element.
+     * @return the value of the element, primitive values are boxed.
+     * @throws InvocationTargetException
+     *             if the indexed read method throws an exception.
+     * @throws IllegalAccessException
+     *             if the indexed read method cannot be accessed.
+     */
+    public Object getIndexed(Object bean, int index)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedRead(bean, null);
+        try {
+            return (Object) indexedGetter.invokeExact(bean, index);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Reads an element of type <code>int</code>, <code>short</code>,
+     * <code>char</code> or <code>byte</code> of the
+     * property of the given bean.
+     * 
+     * @see #getIndexed(Object, int)
+     */
+    public int getIndexedInt(Object bean, int index)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedRead(bean, int.class);
+        try {
+            return (int) indexedIntGetter.invokeExact(bean, index);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Reads an element of a primitive integral type of the
+     * property of the given bean.
+     * 
+     * @see #getIndexed(Object, int)
+     */
+    public long getIndexedLong(Object bean, int index)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedRead(bean, long.class);
+        try {
+            return (long) indexedLongGetter.invokeExact(bean, index);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Reads an element of a primitive numeric type of the
+     * property of the given bean.
+     * 
+     * @see #getIndexed(Object, int)
+     */
+    public double getIndexedDouble(Object bean, int index)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedRead(bean, double.class);
+        try {
+            return (double) indexedDoubleGetter.invokeExact(bean, index);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Reads an element of type <code>boolean</code> of the
+     * property of the given bean.
+     * 
+     * @see #getIndexed(Object, int)
+     */
+    public boolean getIndexedBoolean(Object bean, int index)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedRead(bean, boolean.class);
+        try {
+            return (boolean) indexedBooleanGetter.invokeExact(bean, index);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes an element of the property of the given bean.
+     * 
+     * @param bean
+     *            the bean to write the property of.
+     * @param index
+     *            the index of the element.
+     * @param value
+     *            the new value, primitive values are unboxed.
+     * @throws IllegalArgumentException
+     *             if the value cannot be converted to the type of the
+     *             elements.
+     * @throws InvocationTargetException
+     *             if the indexed write method throws an exception.
+     * @throws IllegalAccessException
+     *             if the indexed write method cannot be accessed.
+     */
+    public void setIndexed(Object bean, int index, Object value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedWrite(bean, null);
+        Class<?> type = indexedWriteType;
+        if (value == null ? type.isPrimitive() : !isConvertible(value
+                .getClass(), type)) {
+            throw new IllegalArgumentException(Messages.getString("beans.67", //$NON-NLS-1$
+                    type.getName(), value == null ? null : value.getClass()
+                            .getName()));
+        }
+        try {
+            indexedSetter.invokeExact(bean, index, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes an element of type <code>int</code>, <code>long</code>,
+     * <code>float</code> or <code>double</code>, or of a type
+     * <code>Integer</code> can be assigned to,
+     * of the property of the given bean.
+     * 
+     * @see #setIndexed(Object, int, Object)
+     */
+    public void setIndexedInt(Object bean, int index, int value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedWrite(bean, int.class);
+        try {
+            indexedIntSetter.invokeExact(bean, index, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes an element of type <code>long</code>, <code>float</code> or
+     * <code>double</code>, or of a type <code>Long</code> can be assigned to,
+     * of the property of the given bean.
+     * 
+     * @see #setIndexed(Object, int, Object)
+     */
+    public void setIndexedLong(Object bean, int index, long value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedWrite(bean, long.class);
+        try {
+            indexedLongSetter.invokeExact(bean, index, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes an element of type <code>double</code>, or of a type
+     * <code>Double</code> can be assigned to,
+     * of the property of the given bean.
+     * 
+     * @see #setIndexed(Object, int, Object)
+     */
+    public void setIndexedDouble(Object bean, int index, double value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedWrite(bean, double.class);
+        try {
+            indexedDoubleSetter.invokeExact(bean, index, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes an element of type <code>boolean</code>, or of a type
+     * <code>Boolean</code> can be assigned to,
+     * of the property of the given bean.
+     * 
+     * @see #setIndexed(Object, int, Object)
+     */
+    public void setIndexedBoolean(Object bean, int index, boolean value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkIndexedWrite(bean, boolean.class);
+        try {
+            indexedBooleanSetter.invokeExact(bean, index, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    private void checkIndexedRead(Object bean, Class<?> type) {
+        if (indexedGetter == null) {
+            throw new UnsupportedOperationException(Messages
+                    .getString("beans.65")); //$NON-NLS-1$
+        }
+        checkBean(indexedReadMethod, bean);
+        if (type != null) {
+            // a null wrapper cannot be read as a primitive
+            Class<?> returnType = indexedReadMethod.getReturnType();
+            if (!returnType.isPrimitive()) {
+                throw new IllegalArgumentException(Messages.getString(
+                        "beans.67", returnType.getName(), type.getName())); //$NON-NLS-1$
+            }
+            checkConvertible(returnType, type);
+        }
+    }
+
+    private void checkIndexedWrite(Object bean, Class<?> type) {
+        if (indexedSetter == null) {
+            throw new UnsupportedOperationException(Messages
+                    .getString("beans.66")); //$NON-NLS-1$
+        }
+        checkBean(indexedWriteMethod, bean);
+        if (type != null) {
+            checkConvertible(type, indexedWriteType);
+        }
+    }
+}
@@ -152,6 +152,18 @@ public class IndexedPropertyDescriptor extends PropertyDescriptor
                 .concat(initialUpperCase(propertyName)));
     }
 
+    IndexedPropertyDescriptor(IndexedPropertyDescriptor descriptor) {
+        super(descriptor);
+        this.indexedPropertyType = descriptor.indexedPropertyType;
+        this.indexedGetter = descriptor.indexedGetter;
+        this.indexedSetter = descriptor.indexedSetter;
+    }
+
+    @Override
+    PropertyDescriptor copy() {
+        return new IndexedPropertyDescriptor(this);
+    }
+
     /**
      * Sets the indexed getter as the specified method.
      * 
@@ -178,6 +190,23 @@ public class IndexedPropertyDescriptor extends PropertyDescriptor
         this.internalSetIndexedWriteMethod(indexedSetter, false);
     }
 
+    /**
+     * Gets an accessor which reads and writes this property and its elements
+     * through method handles.
+     * 
+     * @return the accessor of this property.
+     */
+    @Override
+    public IndexedPropertyAccessor getAccessor() {
+        return (IndexedPropertyAccessor) super.getAccessor();
+    }
+
+    @Override
+    PropertyAccessor createAccessor() {
+        return new IndexedPropertyAccessor(getReadMethod(), getWriteMethod(),
+                indexedGetter, indexedSetter);
+    }
+
     /**
      * Obtains the indexed setter.
      * 
@@ -272,6 +301,7 @@ public class IndexedPropertyDescriptor extends PropertyDescriptor
                 indexedPropertyType = null;
             }
             this.indexedGetter = null;
+            resetAccessor();
             return;
         }
         // Validate the indexed getter.
@@ -304,6 +334,7 @@ public class IndexedPropertyDescriptor extends PropertyDescriptor
 
         // Set the indexed getter
         this.indexedGetter = indexGetter;
+        resetAccessor();
     }
 
     private void setIndexedWriteMethod(Class<?> beanClass, String indexedSetterName)
@@ -354,6 +385,7 @@ public class IndexedPropertyDescriptor extends PropertyDescriptor
                 indexedPropertyType = null;
             }
             this.indexedSetter = null;
+            resetAccessor();
             return;
         }
 
@@ -382,6 +414,7 @@ public class IndexedPropertyDescriptor extends PropertyDescriptor
 
         // Set the indexed write method.
         this.indexedSetter = indexSetter;
+        resetAccessor();
     }
 
     private static String initialUpperCase(String string) {
@@ -0,0 +1,91 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+/**
+ * A {@link PropertyChangeEvent} of an <code>int</code> property, fired by
+ * {@link PropertyChangeSupport#firePropertyChange(String, int, int)}.
+ * <p>
+ * The values are kept as primitives and are only boxed when
+ * {@link #getOldValue()} or {@link #getNewValue()} is called, listeners
+ * which know the type of the property read them with
+ * {@link #getIntOldValue()} and {@link #getIntNewValue()} instead.
+ * </p>
+ */
+public class IntPropertyChangeEvent extends PropertyChangeEvent {
+
+    private static final long serialVersionUID = 2934185315338374922L;
+
+    private final int oldInt;
+
+    private final int newInt;
+
+    /**
+     * Creates a property change event of an <code>int</code> property.
+     * 
+     * @param source
+     *            the changed bean.
+     * @param propertyName
+     *            the changed property.
+     * @param oldValue
+     *            the previous value of the property.
+     * @param newValue
+     *            the new value of the property.
+     */
+    public IntPropertyChangeEvent(Object source, String propertyName,
+            int oldValue, int newValue) {
+        super(source, propertyName, null, null);
+        this.oldInt = oldValue;
+        this.newInt = newValue;
+    }
+
+    /**
+     * Returns the previous value of the property without boxing it.
+     */
+    public int getIntOldValue() {
+        return oldInt;
+    }
+
+    /**
+     * Returns the new value of the property without boxing it.
+     */
+    public int getIntNewValue() {
+        return newInt;
+    }
+
+    @Override
+    public Object getOldValue() {
+        // boxed on first use, a race only boxes the value twice
+        Object value = oldValue;
+        if (value == null) {
+            value = Integer.valueOf(oldInt);
+            oldValue = value;
+        }
+        return value;
+    }
+
+    @Override
+    public Object getNewValue() {
+        Object value = newValue;
+        if (value == null) {
+            value = Integer.valueOf(newInt);
+            newValue = value;
+        }
+        return value;
+    }
+}
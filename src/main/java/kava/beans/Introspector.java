@@ -17,9 +17,19 @@
 
 package kava.beans;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * The <code>Introspector</code> is a utility for developers to figure out
@@ -79,10 +89,19 @@ public class Introspector extends java.lang.Object {
     // - an array of package names that are used in turn
     private static String[] searchPath = { DEFAULT_BEANINFO_SEARCHPATH };
 
-    // The cache to store Bean Info objects that have been found or created
-    private static final int DEFAULT_CAPACITY = 128;
+    // The cache to store Bean Info objects that have been found or created,
+    // replaced as a whole by flushCaches()
+    private static volatile BeanInfoCache theCache = new BeanInfoCache();
 
-    private static Map<Class<?>, StandardBeanInfo> theCache = Collections.synchronizedMap(new WeakHashMap<Class<?>, StandardBeanInfo>(DEFAULT_CAPACITY));
+    // The names of BeanInfo classes known to be missing, per class loader
+    private static final Map<ClassLoader, Set<String>> missingBeanInfos = Collections
+            .synchronizedMap(new WeakHashMap<ClassLoader, Set<String>>());
+
+    // The number of class loading attempts answered by missingBeanInfos
+    private static final AtomicLong savedBeanInfoLookups = new AtomicLong();
+
+    // The snapshot of the indexes of bean classes, null if there is none
+    private static volatile BeanInfoSnapshot snapshot;
 
     private Introspector() {
         super();
@@ -121,9 +140,10 @@ public class Introspector extends java.lang.Object {
      *  
      */
     public static void flushCaches() {
-        // Flush the cache by throwing away the cache HashMap and creating a
-        // new empty one
-        theCache.clear();
+        // Flush the cache by throwing away the cache and creating a new empty
+        // one, the old entries are released together with it
+        theCache = new BeanInfoCache();
+        missingBeanInfos.clear();
     }
 
     /**
@@ -157,12 +177,7 @@ public class Introspector extends java.lang.Object {
     public static kava.beans.BeanInfo getBeanInfo(Class<?> beanClass)
             throws kava.beans.IntrospectionException
 	{
-        StandardBeanInfo beanInfo = theCache.get(beanClass);
-        if (beanInfo == null) {
-            beanInfo = getBeanInfoImplAndInit(beanClass, null, USE_ALL_BEANINFO);
-            theCache.put(beanClass, beanInfo);
-        }
-        return beanInfo;
+        return theCache.get(beanClass).get(beanClass, null, USE_ALL_BEANINFO);
     }
 
     /**
@@ -187,11 +202,7 @@ public class Introspector extends java.lang.Object {
     public static kava.beans.BeanInfo getBeanInfo(Class<?> beanClass, Class<?> stopClass)
             throws kava.beans.IntrospectionException
 	{
-        if(stopClass == null){
-            //try to use cache
-            return getBeanInfo(beanClass);
-        }
-        return getBeanInfoImplAndInit(beanClass, stopClass, USE_ALL_BEANINFO);
+        return theCache.get(beanClass).get(beanClass, stopClass, USE_ALL_BEANINFO);
     }
 
     /**
@@ -225,11 +236,71 @@ public class Introspector extends java.lang.Object {
     public static kava.beans.BeanInfo getBeanInfo(Class<?> beanClass, int flags)
             throws kava.beans.IntrospectionException
 	{
-        if(flags == USE_ALL_BEANINFO){
-            //try to use cache            
-            return getBeanInfo(beanClass);
+        return theCache.get(beanClass).get(beanClass, null, flags);
+    }
+
+    /**
+     * Introspects the specified bean classes in parallel on the common
+     * fork-join pool and stores their <code>BeanInfo</code> in the cache.
+     * 
+     * @param beanClasses
+     *            the bean classes to introspect.
+     * @return a future completed when all the classes have been
+     *         introspected. Its value maps each class which could not be
+     *         introspected to the failure, it is empty if all succeeded.
+     * @see #preload(Collection, Executor)
+     */
+    public static CompletableFuture<Map<Class<?>, Throwable>> preload(
+            Collection<? extends Class<?>> beanClasses) {
+        return preload(beanClasses, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Introspects the specified bean classes in parallel and stores their
+     * <code>BeanInfo</code> in the cache, so that later calls to
+     * <code>getBeanInfo(Class)</code> are answered from it.
+     * 
+     * @param beanClasses
+     *            the bean classes to introspect.
+     * @param executor
+     *            the executor to run the introspection on.
+     * @return a future completed when all the classes have been
+     *         introspected. Its value maps each class which could not be
+     *         introspected to the failure, it is empty if all succeeded.
+     */
+    public static CompletableFuture<Map<Class<?>, Throwable>> preload(
+            Collection<? extends Class<?>> beanClasses, Executor executor) {
+        if (beanClasses == null || executor == null) {
+            throw new NullPointerException();
+        }
+        final Map<Class<?>, Throwable> failures = new ConcurrentHashMap<Class<?>, Throwable>();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[beanClasses.size()];
+        int count = 0;
+        for (final Class<?> beanClass : beanClasses) {
+            if (beanClass == null) {
+                continue;
+            }
+            tasks[count++] = CompletableFuture.runAsync(new Runnable() {
+                public void run() {
+                    try {
+                        getBeanInfo(beanClass);
+                    } catch (Throwable e) {
+                        failures.put(beanClass, e);
+                    }
+                }
+            }, executor);
+        }
+        if (count < tasks.length) {
+            CompletableFuture<?>[] started = new CompletableFuture<?>[count];
+            System.arraycopy(tasks, 0, started, 0, count);
+            tasks = started;
         }
-        return getBeanInfoImplAndInit(beanClass, null, flags);
+        return CompletableFuture.allOf(tasks).thenApply(
+                new Function<Void, Map<Class<?>, Throwable>>() {
+                    public Map<Class<?>, Throwable> apply(Void ignored) {
+                        return Collections.unmodifiableMap(failures);
+                    }
+                });
     }
 
     /**
@@ -253,6 +324,77 @@ public class Introspector extends java.lang.Object {
             System.getSecurityManager().checkPropertiesAccess();
         }
         searchPath = path;
+        missingBeanInfos.clear();
+    }
+
+    /**
+     * Gets the number of explicit <code>BeanInfo</code> class loading
+     * attempts which were skipped because the class was already known to be
+     * missing from the class loader.
+     * 
+     * @return the number of skipped class loading attempts.
+     */
+    public static long getSavedBeanInfoLookupCount() {
+        return savedBeanInfoLookups.get();
+    }
+
+    /**
+     * Uses the specified snapshot file, written by
+     * {@link #writeBeanInfoSnapshot(File, Collection)}, to avoid reflecting
+     * over the methods of the bean classes it contains and to avoid looking
+     * for explicit <code>BeanInfo</code> classes which were missing when it
+     * was written. The file is mapped into memory and each entry is only
+     * checked against its class when the class is introspected; entries of
+     * classes whose class file or jar file has changed since the snapshot was
+     * written are ignored, and explicit <code>BeanInfo</code> classes are
+     * looked for again if the search path has changed. The
+     * <code>BeanInfo</code> already in the cache is not affected.
+     * 
+     * @param file
+     *            the snapshot file, or null to stop using a snapshot.
+     * @throws IOException
+     *             if the file cannot be read or is not a snapshot.
+     */
+    public static void setBeanInfoSnapshot(File file) throws IOException {
+        snapshot = file == null ? null : BeanInfoSnapshot.open(file);
+    }
+
+    /**
+     * Writes a snapshot file for the specified bean classes, to be used by
+     * {@link #setBeanInfoSnapshot(File)} in a later run. The classes which
+     * were not loaded from a class file, a jar file or the runtime are left
+     * out.
+     * 
+     * @param file
+     *            the file to write.
+     * @param beanClasses
+     *            the bean classes to put in the snapshot.
+     * @throws IOException
+     *             if the file cannot be written.
+     */
+    public static void writeBeanInfoSnapshot(File file,
+            Collection<? extends Class<?>> beanClasses) throws IOException {
+        if (file == null || beanClasses == null) {
+            throw new NullPointerException();
+        }
+        BeanInfoSnapshot.write(file, beanClasses);
+    }
+
+    /**
+     * Gets the number of bean classes introspected from the entries of the
+     * snapshot set by {@link #setBeanInfoSnapshot(File)} instead of by
+     * reflection.
+     * 
+     * @return the number of classes taken from the snapshot, or 0 if no
+     *         snapshot is used.
+     */
+    public static long getBeanInfoSnapshotHitCount() {
+        BeanInfoSnapshot current = snapshot;
+        return current == null ? 0 : current.getHitCount();
+    }
+
+    static BeanInfoSnapshot getSnapshot() {
+        return snapshot;
     }
 
     private static StandardBeanInfo getBeanInfoImpl(Class<?> beanClass, Class<?> stopClass,
@@ -260,7 +402,11 @@ public class Introspector extends java.lang.Object {
 	{
         kava.beans.BeanInfo explicitInfo = null;
         if (flags == USE_ALL_BEANINFO) {
-            explicitInfo = getExplicitBeanInfo(beanClass);
+            BeanInfoSnapshot current = snapshot;
+            if (current == null
+                    || !current.lacksExplicitBeanInfo(beanClass, searchPath)) {
+                explicitInfo = getExplicitBeanInfo(beanClass);
+            }
         }
         StandardBeanInfo beanInfo = new StandardBeanInfo(beanClass, explicitInfo, stopClass);
 
@@ -271,7 +417,8 @@ public class Introspector extends java.lang.Object {
             }
         }
         
-        // recursive get beaninfo for super classes
+        // get beaninfo for super classes through the cache, so that every
+        // class of a hierarchy is introspected only once
         Class<?> beanSuperClass = beanClass.getSuperclass();
         if (beanSuperClass != stopClass) {
             if (beanSuperClass == null)
@@ -279,21 +426,22 @@ public class Introspector extends java.lang.Object {
                         "Stop class is not super class of bean class"); //$NON-NLS-1$
             int superflags = flags == IGNORE_IMMEDIATE_BEANINFO ? USE_ALL_BEANINFO
                     : flags;
-            kava.beans.BeanInfo superBeanInfo = getBeanInfoImpl(beanSuperClass, stopClass,
-                    superflags);
-            if (superBeanInfo != null) {
-                beanInfo.mergeBeanInfo(superBeanInfo, false);
-            }
+            StandardBeanInfo superBeanInfo = theCache.get(beanSuperClass).get(
+                    beanSuperClass, stopClass, superflags);
+            // merges copies, the cached descriptors must stay untouched
+            beanInfo.mergeSuperBeanInfo(superBeanInfo);
         }
         return beanInfo;
     }
 
-    private static kava.beans.BeanInfo getExplicitBeanInfo(Class<?> beanClass) {
+    static kava.beans.BeanInfo getExplicitBeanInfo(Class<?> beanClass) {
         kava.beans.BeanInfo theBeanInfo = null;
         String beanInfoClassName = beanClass.getName() + "BeanInfo"; //$NON-NLS-1$
         try{
             theBeanInfo = loadBeanInfo(beanInfoClassName, beanClass);
-            return theBeanInfo;
+            if (theBeanInfo != null) {
+                return theBeanInfo;
+            }
         }catch(Exception e){
             //fall through
         }
@@ -302,8 +450,12 @@ public class Introspector extends java.lang.Object {
         for (int i = 0; i < searchPath.length; i++) {
             beanInfoClassName = searchPath[i] + "." + beanInfoName; //$NON-NLS-1$
             try{
-                theBeanInfo = loadBeanInfo(beanInfoClassName, beanClass);
-                
+                kava.beans.BeanInfo info = loadBeanInfo(beanInfoClassName, beanClass);
+                if (info == null) {
+                    continue;
+                }
+                theBeanInfo = info;
+
                 // find the beanInfo of the given beanClass, check whether the
                 // beanInfo is consistent with the given beanClass
                 Class<?> beanClassOfBeanInfo = theBeanInfo.getBeanDescriptor()
@@ -328,28 +480,62 @@ public class Introspector extends java.lang.Object {
      *            instance
      * @param classLoader
      * @return A BeanInfo object which is an instance of the Class named
-     *         theBeanInfoClassName null if the Class does not exist or if there
-     *         are problems instantiating the instance
+     *         theBeanInfoClassName null if the Class does not exist
+     * @throws Exception if there are problems instantiating the instance
      */
     private static kava.beans.BeanInfo loadBeanInfo(String beanInfoClassName,
         Class<?> beanClass) throws Exception{
         try {
             ClassLoader cl = beanClass.getClassLoader();
             if(cl != null){
-                return (kava.beans.BeanInfo) Class.forName(beanInfoClassName, true,
-                    beanClass.getClassLoader()).newInstance();
+                Class<?> beanInfoClass = findBeanInfoClass(beanInfoClassName, cl);
+                if (beanInfoClass != null) {
+                    return (kava.beans.BeanInfo) beanInfoClass.newInstance();
+                }
             }
         } catch (Exception e) {
             // fall through
         }
         try {
-            return (kava.beans.BeanInfo) Class.forName(beanInfoClassName, true,
-                    ClassLoader.getSystemClassLoader()).newInstance();
+            Class<?> beanInfoClass = findBeanInfoClass(beanInfoClassName,
+                    ClassLoader.getSystemClassLoader());
+            if (beanInfoClass != null) {
+                return (kava.beans.BeanInfo) beanInfoClass.newInstance();
+            }
         } catch (Exception e) {
             // fall through
         }
-        return (BeanInfo) Class.forName(beanInfoClassName, true,
-                Thread.currentThread().getContextClassLoader()).newInstance();
+        Class<?> beanInfoClass = findBeanInfoClass(beanInfoClassName,
+                Thread.currentThread().getContextClassLoader());
+        return beanInfoClass == null ? null : (BeanInfo) beanInfoClass.newInstance();
+    }
+
+    /*
+     * Loads the named class, remembering the names which are missing from the
+     * class loader so that the next lookups do not pay for a failed class
+     * loading again.
+     */
+    private static Class<?> findBeanInfoClass(String beanInfoClassName,
+            ClassLoader classLoader) {
+        Set<String> missing;
+        synchronized (missingBeanInfos) {
+            missing = missingBeanInfos.get(classLoader);
+            if (missing == null) {
+                missing = Collections
+                        .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                missingBeanInfos.put(classLoader, missing);
+            }
+        }
+        if (missing.contains(beanInfoClassName)) {
+            savedBeanInfoLookups.incrementAndGet();
+            return null;
+        }
+        try {
+            return Class.forName(beanInfoClassName, true, classLoader);
+        } catch (ClassNotFoundException e) {
+            missing.add(beanInfoClassName);
+            return null;
+        }
     }
 
     private static StandardBeanInfo getBeanInfoImplAndInit(Class<?> beanClass,
@@ -359,8 +545,116 @@ public class Introspector extends java.lang.Object {
                 stopClass, flag);
         standardBeanInfo.init();
         return standardBeanInfo;
-    }  
-}
+    }
 
+    /*
+     * The BeanInfo cache. Entries are attached to the bean classes through
+     * ClassValue, so lookups take no lock and an entry never keeps the class
+     * loader of its bean class alive.
+     */
+    private static class BeanInfoCache extends ClassValue<BeanInfoEntry> {
 
+        @Override
+        protected BeanInfoEntry computeValue(Class<?> type) {
+            return new BeanInfoEntry();
+        }
+    }
+
+    /*
+     * All cached BeanInfo objects of one bean class: the default lookup and
+     * the ones introspected with a stop class or non-default flags. A stop
+     * class is always a super class of the bean class, so keeping it here
+     * does not hold anything the bean class does not already hold.
+     */
+    private static class BeanInfoEntry {
+
+        private final BeanInfoHolder defaultInfo = new BeanInfoHolder(null,
+                USE_ALL_BEANINFO);
 
+        private final ConcurrentHashMap<VariantKey, BeanInfoHolder> variants = new ConcurrentHashMap<VariantKey, BeanInfoHolder>();
+
+        StandardBeanInfo get(Class<?> beanClass, Class<?> stopClass, int flags)
+                throws IntrospectionException {
+            if (stopClass == null && flags == USE_ALL_BEANINFO) {
+                return defaultInfo.get(beanClass);
+            }
+            VariantKey key = new VariantKey(stopClass, flags);
+            BeanInfoHolder holder = variants.get(key);
+            if (holder == null) {
+                BeanInfoHolder newHolder = new BeanInfoHolder(stopClass, flags);
+                holder = variants.putIfAbsent(key, newHolder);
+                if (holder == null) {
+                    holder = newHolder;
+                }
+            }
+            try {
+                return holder.get(beanClass);
+            } catch (IntrospectionException e) {
+                // do not keep an invalid stop class reachable
+                variants.remove(key, holder);
+                throw e;
+            }
+        }
+    }
+
+    private static class VariantKey {
+
+        private final Class<?> stopClass;
+
+        private final int flags;
+
+        VariantKey(Class<?> stopClass, int flags) {
+            this.stopClass = stopClass;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof VariantKey)) {
+                return false;
+            }
+            VariantKey key = (VariantKey) obj;
+            return stopClass == key.stopClass && flags == key.flags;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(stopClass) * 31 + flags;
+        }
+    }
+
+    /*
+     * Holds the BeanInfo of one bean class for one stop class and flags
+     * combination. Threads that miss on it at the same time wait for a
+     * single introspection instead of running it concurrently. Failures are
+     * not cached.
+     */
+    private static class BeanInfoHolder {
+
+        private final Class<?> stopClass;
+
+        private final int flags;
+
+        private volatile StandardBeanInfo beanInfo;
+
+        BeanInfoHolder(Class<?> stopClass, int flags) {
+            this.stopClass = stopClass;
+            this.flags = flags;
+        }
+
+        StandardBeanInfo get(Class<?> beanClass) throws IntrospectionException {
+            StandardBeanInfo info = beanInfo;
+            if (info == null) {
+                synchronized (this) {
+                    info = beanInfo;
+                    if (info == null) {
+                        info = getBeanInfoImplAndInit(beanClass, stopClass,
+                                flags);
+                        beanInfo = info;
+                    }
+                }
+            }
+            return info;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+/**
+ * A {@link PropertyChangeEvent} of a <code>long</code> property, fired by
+ * {@link PropertyChangeSupport#fireLongPropertyChange(String, long, long)}.
+ * <p>
+ * The values are kept as primitives and are only boxed when
+ * {@link #getOldValue()} or {@link #getNewValue()} is called, listeners
+ * which know the type of the property read them with
+ * {@link #getLongOldValue()} and {@link #getLongNewValue()} instead.
+ * </p>
+ */
+public class LongPropertyChangeEvent extends PropertyChangeEvent {
+
+    private static final long serialVersionUID = -4722431528931457710L;
+
+    private final long oldLong;
+
+    private final long newLong;
+
+    /**
+     * Creates a property change event of a <code>long</code> property.
+     * 
+     * @param source
+     *            the changed bean.
+     * @param propertyName
+     *            the changed property.
+     * @param oldValue
+     *            the previous value of the property.
+     * @param newValue
+     *            the new value of the property.
+     */
+    public LongPropertyChangeEvent(Object source, String propertyName,
+            long oldValue, long newValue) {
+        super(source, propertyName, null, null);
+        this.oldLong = oldValue;
+        this.newLong = newValue;
+    }
+
+    /**
+     * Returns the previous value of the property without boxing it.
+     */
+    public long getLongOldValue() {
+        return oldLong;
+    }
+
+    /**
+     * Returns the new value of the property without boxing it.
+     */
+    public long getLongNewValue() {
+        return newLong;
+    }
+
+    @Override
+    public Object getOldValue() {
+        // boxed on first use, a race only boxes the value twice
+        Object value = oldValue;
+        if (value == null) {
+            value = Long.valueOf(oldLong);
+            oldValue = value;
+        }
+        return value;
+    }
+
+    @Override
+    public Object getNewValue() {
+        Object value = newValue;
+        if (value == null) {
+            value = Long.valueOf(newLong);
+            newValue = value;
+        }
+        return value;
+    }
+}
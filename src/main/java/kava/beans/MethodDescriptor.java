@@ -75,6 +75,12 @@ public class MethodDescriptor extends FeatureDescriptor
         setName(method.getName());
     }
 
+    MethodDescriptor(MethodDescriptor descriptor) {
+        super(descriptor);
+        this.method = descriptor.method;
+        this.parameterDescriptors = descriptor.parameterDescriptors;
+    }
+
     /**
      * <p>
      * Gets the method.
@@ -0,0 +1,493 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import kava.beans.internal.Messages;
+
+/**
+ * Reads and writes a property of beans through method handles, instead of
+ * calling <code>Method.invoke</code> for each access.
+ * <p>
+ * An accessor is obtained from {@link PropertyDescriptor#getAccessor()} and is
+ * created again when the read or write method of the descriptor changes. The
+ * typed methods read and write primitive properties without boxing, they
+ * accept the same widening conversions as <code>Method.invoke</code>. When the
+ * accessor methods cannot be reached through a public method handle, the
+ * accessor falls back to reflection.
+ * </p>
+ * <p>
+ * Exceptions thrown by the read or write method are wrapped in an
+ * <code>InvocationTargetException</code>, like <code>Method.invoke</code>
+ * does.
+ * </p>
+ */
+public class PropertyAccessor {
+
+    // Method.invoke(Object, Object[]) called from this class, used when a
+    // method is not publicly accessible
+    private static final MethodHandle INVOKE;
+
+    static {
+        try {
+            INVOKE = MethodHandles.lookup().findVirtual(Method.class,
+                    "invoke", MethodType.methodType(Object.class, //$NON-NLS-1$
+                            Object.class, Object[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+    }
+
+    private final Method readMethod;
+
+    private final Method writeMethod;
+
+    // the parameter type of the write method, getParameterTypes() copies
+    private final Class<?> writeType;
+
+    /*
+     * The handles adapted once to the fixed shapes called with invokeExact,
+     * (Object)Object and (Object,Object)void, then one per primitive type.
+     * They are null if there is no such method or the type of the property
+     * cannot be converted.
+     */
+    private final MethodHandle getter;
+
+    private final MethodHandle intGetter;
+
+    private final MethodHandle longGetter;
+
+    private final MethodHandle doubleGetter;
+
+    private final MethodHandle booleanGetter;
+
+    private final MethodHandle setter;
+
+    private final MethodHandle intSetter;
+
+    private final MethodHandle longSetter;
+
+    private final MethodHandle doubleSetter;
+
+    private final MethodHandle booleanSetter;
+
+    PropertyAccessor(Method readMethod, Method writeMethod) {
+        this.readMethod = readMethod;
+        this.writeMethod = writeMethod;
+        this.writeType = writeMethod == null ? null : writeMethod
+                .getParameterTypes()[0];
+        MethodHandle read = readMethod == null ? null : toHandle(readMethod);
+        this.getter = adaptGetter(read, Object.class);
+        this.intGetter = adaptGetter(read, int.class);
+        this.longGetter = adaptGetter(read, long.class);
+        this.doubleGetter = adaptGetter(read, double.class);
+        this.booleanGetter = adaptGetter(read, boolean.class);
+        MethodHandle write = writeMethod == null ? null : toHandle(writeMethod);
+        this.setter = adaptSetter(write, Object.class);
+        this.intSetter = adaptSetter(write, int.class);
+        this.longSetter = adaptSetter(write, long.class);
+        this.doubleSetter = adaptSetter(write, double.class);
+        this.booleanSetter = adaptSetter(write, boolean.class);
+    }
+
+    /**
+     * Returns whether the property can be read.
+     */
+    public boolean isReadable() {
+        return getter != null;
+    }
+
+    /**
+     * Returns whether the property can be written.
+     */
+    public boolean isWritable() {
+        return setter != null;
+    }
+
+    /**
+     * Reads the property of the given bean.
+     * 
+     * @param bean
+     *            the bean to read the property of.
+     * @return the value of the property, primitive values are boxed.
+     * @throws InvocationTargetException
+     *             if the read method throws an exception.
+     * @throws IllegalAccessException
+     *             if the read method cannot be accessed.
+     */
+    public Object get(Object bean) throws InvocationTargetException,
+            IllegalAccessException {
+        checkRead(bean, null);
+        try {
+            return (Object) getter.invokeExact(bean);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Reads a property of type <code>int</code>, <code>short</code>,
+     * <code>char</code> or <code>byte</code> of the given bean.
+     * 
+     * @see #get(Object)
+     */
+    public int getInt(Object bean) throws InvocationTargetException,
+            IllegalAccessException {
+        checkRead(bean, int.class);
+        try {
+            return (int) intGetter.invokeExact(bean);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Reads a property of a primitive integral type of the given bean.
+     * 
+     * @see #get(Object)
+     */
+    public long getLong(Object bean) throws InvocationTargetException,
+            IllegalAccessException {
+        checkRead(bean, long.class);
+        try {
+            return (long) longGetter.invokeExact(bean);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Reads a property of a primitive numeric type of the given bean.
+     * 
+     * @see #get(Object)
+     */
+    public double getDouble(Object bean) throws InvocationTargetException,
+            IllegalAccessException {
+        checkRead(bean, double.class);
+        try {
+            return (double) doubleGetter.invokeExact(bean);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Reads a property of type <code>boolean</code> of the given bean.
+     * 
+     * @see #get(Object)
+     */
+    public boolean getBoolean(Object bean) throws InvocationTargetException,
+            IllegalAccessException {
+        checkRead(bean, boolean.class);
+        try {
+            return (boolean) booleanGetter.invokeExact(bean);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes the property of the given bean.
+     * 
+     * @param bean
+     *            the bean to write the property of.
+     * @param value
+     *            the new value, primitive values are unboxed.
+     * @throws IllegalArgumentException
+     *             if the value cannot be converted to the type of the
+     *             property.
+     * @throws InvocationTargetException
+     *             if the write method throws an exception.
+     * @throws IllegalAccessException
+     *             if the write method cannot be accessed.
+     */
+    public void set(Object bean, Object value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkWrite(bean, null);
+        Class<?> type = writeType;
+        if (value == null ? type.isPrimitive() : !isConvertible(value
+                .getClass(), type)) {
+            throw new IllegalArgumentException(Messages.getString("beans.67", //$NON-NLS-1$
+                    type.getName(), value == null ? null : value.getClass()
+                            .getName()));
+        }
+        try {
+            setter.invokeExact(bean, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes a property of type <code>int</code>, <code>long</code>,
+     * <code>float</code> or <code>double</code>, or of a type
+     * <code>Integer</code> can be assigned to, of the given bean.
+     * 
+     * @see #set(Object, Object)
+     */
+    public void setInt(Object bean, int value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkWrite(bean, int.class);
+        try {
+            intSetter.invokeExact(bean, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes a property of type <code>long</code>, <code>float</code> or
+     * <code>double</code>, or of a type <code>Long</code> can be assigned to,
+     * of the given bean.
+     * 
+     * @see #set(Object, Object)
+     */
+    public void setLong(Object bean, long value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkWrite(bean, long.class);
+        try {
+            longSetter.invokeExact(bean, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes a property of type <code>double</code>, or of a type
+     * <code>Double</code> can be assigned to, of the given bean.
+     * 
+     * @see #set(Object, Object)
+     */
+    public void setDouble(Object bean, double value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkWrite(bean, double.class);
+        try {
+            doubleSetter.invokeExact(bean, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /**
+     * Writes a property of type <code>boolean</code>, or of a type
+     * <code>Boolean</code> can be assigned to, of the given bean.
+     * 
+     * @see #set(Object, Object)
+     */
+    public void setBoolean(Object bean, boolean value)
+            throws InvocationTargetException, IllegalAccessException {
+        checkWrite(bean, boolean.class);
+        try {
+            booleanSetter.invokeExact(bean, value);
+        } catch (Throwable t) {
+            throw invocationException(t);
+        }
+    }
+
+    /*
+     * Checks that the property can be read from the bean, as a value of the
+     * given primitive type if it is not null.
+     */
+    private void checkRead(Object bean, Class<?> type) {
+        if (getter == null) {
+            throw new UnsupportedOperationException(Messages
+                    .getString("beans.65")); //$NON-NLS-1$
+        }
+        checkBean(readMethod, bean);
+        if (type != null) {
+            // a null wrapper cannot be read as a primitive
+            Class<?> returnType = readMethod.getReturnType();
+            if (!returnType.isPrimitive()) {
+                throw new IllegalArgumentException(Messages.getString(
+                        "beans.67", returnType.getName(), type.getName())); //$NON-NLS-1$
+            }
+            checkConvertible(returnType, type);
+        }
+    }
+
+    private void checkWrite(Object bean, Class<?> type) {
+        if (setter == null) {
+            throw new UnsupportedOperationException(Messages
+                    .getString("beans.66")); //$NON-NLS-1$
+        }
+        checkBean(writeMethod, bean);
+        if (type != null) {
+            checkConvertible(type, writeType);
+        }
+    }
+
+    static void checkBean(Method method, Object bean) {
+        if (Modifier.isStatic(method.getModifiers())) {
+            return;
+        }
+        if (bean == null) {
+            throw new NullPointerException();
+        }
+        if (!method.getDeclaringClass().isInstance(bean)) {
+            throw new IllegalArgumentException(Messages.getString("beans.68", //$NON-NLS-1$
+                    method.getDeclaringClass().getName()));
+        }
+    }
+
+    static void checkConvertible(Class<?> from, Class<?> to) {
+        if (!isConvertible(from, to)) {
+            throw new IllegalArgumentException(Messages.getString("beans.67", //$NON-NLS-1$
+                    from.getName(), to.getName()));
+        }
+    }
+
+    /*
+     * Checks whether a value of the given type can be passed as the other
+     * type, with the conversions allowed by Method.invoke. Wrapper types are
+     * converted like the primitive types they wrap when the target type is
+     * primitive.
+     */
+    static boolean isConvertible(Class<?> from, Class<?> to) {
+        if (!to.isPrimitive()) {
+            if (from.isPrimitive()) {
+                from = wrap(from);
+            }
+            return to.isAssignableFrom(from);
+        }
+        if (!from.isPrimitive()) {
+            from = unwrap(from);
+            if (from == null) {
+                return false;
+            }
+        }
+        if (from == to) {
+            return true;
+        }
+        int fromRank = rank(from);
+        int toRank = rank(to);
+        if (fromRank < 0 || toRank < 0) {
+            return false;
+        }
+        if (from == char.class) {
+            // char widens to int and beyond only
+            return toRank >= rank(int.class);
+        }
+        return to != char.class && fromRank < toRank;
+    }
+
+    private static int rank(Class<?> type) {
+        if (type == byte.class) {
+            return 0;
+        } else if (type == short.class || type == char.class) {
+            return 1;
+        } else if (type == int.class) {
+            return 2;
+        } else if (type == long.class) {
+            return 3;
+        } else if (type == float.class) {
+            return 4;
+        } else if (type == double.class) {
+            return 5;
+        }
+        return -1;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    private static Class<?> unwrap(Class<?> type) {
+        Class<?> primitive = MethodType.methodType(type).unwrap().returnType();
+        return primitive == type ? null : primitive;
+    }
+
+    /*
+     * Adapts a handle of type (Object)T to return the given type, answers null
+     * if there is no handle or T cannot be converted to the type.
+     */
+    static MethodHandle adaptGetter(MethodHandle handle, Class<?> type) {
+        if (handle == null
+                || (type.isPrimitive() && !(handle.type().returnType()
+                        .isPrimitive() && isConvertible(handle.type()
+                        .returnType(), type)))) {
+            return null;
+        }
+        return handle.asType(handle.type().changeReturnType(type));
+    }
+
+    /*
+     * Adapts a handle of type (Object,T)void, or (Object,int,T)void, to take a
+     * value of the given type, answers null if there is no handle or the type
+     * cannot be converted to T.
+     */
+    static MethodHandle adaptSetter(MethodHandle handle, Class<?> type) {
+        if (handle == null) {
+            return null;
+        }
+        MethodType handleType = handle.type();
+        int last = handleType.parameterCount() - 1;
+        if (type.isPrimitive()
+                && !isConvertible(type, handleType.parameterType(last))) {
+            return null;
+        }
+        return handle.asType(handleType.changeParameterType(last, type)
+                .changeReturnType(void.class));
+    }
+
+    /*
+     * Creates a handle for the method with the receiver erased to Object,
+     * falling back to Method.invoke if the method is not publicly
+     * accessible.
+     */
+    static MethodHandle toHandle(Method method) {
+        MethodType type = MethodType.methodType(method.getReturnType(),
+                method.getParameterTypes()).insertParameterTypes(0,
+                Object.class);
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.publicLookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+        } catch (IllegalAccessException e) {
+            handle = INVOKE.bindTo(method).asCollector(Object[].class,
+                    method.getParameterTypes().length);
+        }
+        return handle.asType(type);
+    }
+
+    /*
+     * Wraps a throwable of the target method, the exceptions of Method.invoke
+     * used as a fall back are passed on unchanged.
+     */
+    static InvocationTargetException invocationException(Throwable t)
+            throws IllegalAccessException {
+        if (t instanceof InvocationTargetException) {
+            return (InvocationTargetException) t;
+        }
+        if (t instanceof IllegalAccessException) {
+            throw (IllegalAccessException) t;
+        }
+        if (t instanceof WrongMethodTypeException) {
+            throw new IllegalArgumentException(t);
+        }
+        return new InvocationTargetException(t);
+    }
+}
@@ -18,28 +18,70 @@
 package kava.beans;
 
 import java.io.IOException;
+import java.io.InvalidObjectException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
-import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 public class PropertyChangeSupport implements Serializable {
 
     private static final long serialVersionUID = 6401253773779951803l;
 
-    private transient List<kava.beans.PropertyChangeListener> globalListeners = new ArrayList<kava.beans.PropertyChangeListener>();
+    // the serialized form of the original implementation
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("children", Hashtable.class), //$NON-NLS-1$
+            new ObjectStreamField("source", Object.class), //$NON-NLS-1$
+            new ObjectStreamField(
+                    "propertyChangeSupportSerializedDataVersion", int.class) }; //$NON-NLS-1$
 
-    private Hashtable<String, PropertyChangeSupport> children = new Hashtable<String, PropertyChangeSupport>();
+    private static final kava.beans.PropertyChangeListener[] EMPTY = new kava.beans.PropertyChangeListener[0];
+
+    /*
+     * The listeners are kept in immutable arrays which are replaced under the
+     * lock of this object when a listener is added or removed, so that events
+     * are fired without locking or copying.
+     */
+    private transient volatile kava.beans.PropertyChangeListener[] globalListeners = EMPTY;
+
+    // The listeners of single properties, the keys are never removed
+    private transient ConcurrentHashMap<String, PropertyKey> propertyKeys = new ConcurrentHashMap<String, PropertyKey>();
+
+    // The references of weak and soft listeners, created on the first one
+    private transient volatile ReferenceQueue<Object> collectedListeners;
+
+    // The changes collected since beginBatch(), null outside of a batch
+    private transient volatile Batch batch;
+
+    // The nesting depth of beginBatch() calls, guarded by this object
+    private transient int batchDepth;
+
+    // The queue of asynchronous dispatch, null when firing synchronously,
+    // or retired while it delivers the changes queued before
+    // setSynchronousDispatch(); replaced under the lock of this object
+    private transient volatile AsyncDispatcher asyncDispatcher;
+
+    // The recorder of the dispatched changes, null unless installed
+    private transient volatile DispatchMetrics dispatchMetrics;
 
     private Object source;
 
-    @SuppressWarnings("unused")
     // for serialization compatibility
     private int propertyChangeSupportSerializedDataVersion = 1;
 
+    // the version of the form with the property listeners as arrays
+    private static final int COMPACT_FORM_VERSION = 2;
+
     public PropertyChangeSupport(Object sourceBean) {
         if (sourceBean == null) {
             throw new NullPointerException();
@@ -49,26 +91,32 @@ public class PropertyChangeSupport implements Serializable {
 
     public void firePropertyChange(String propertyName, Object oldValue,
             Object newValue) {
+        if (!isListened(propertyName)) {
+            return;
+        }
         kava.beans.PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
                 oldValue, newValue);
-        doFirePropertyChange(event);
+        doFirePropertyChange(event, null);
     }
 
     public void fireIndexedPropertyChange(String propertyName, int index,
             Object oldValue, Object newValue) {
+        if (!isListened(propertyName)) {
+            return;
+        }
 
         // nulls and equals check done in doFire...
         doFirePropertyChange(new IndexedPropertyChangeEvent(source,
-                propertyName, oldValue, newValue, index));
+                propertyName, oldValue, newValue, index), null);
     }
 
     public synchronized void removePropertyChangeListener(String propertyName,
             kava.beans.PropertyChangeListener listener) {
         if ((propertyName != null) && (listener != null)) {
-            PropertyChangeSupport listeners = children.get(propertyName);
+            PropertyKey key = propertyKeys.get(propertyName);
 
-            if (listeners != null) {
-                listeners.removePropertyChangeListener(listener);
+            if (key != null) {
+                key.listeners = remove(key.listeners, listener);
             }
         }
     }
@@ -76,79 +124,354 @@ public class PropertyChangeSupport implements Serializable {
     public synchronized void addPropertyChangeListener(String propertyName,
             kava.beans.PropertyChangeListener listener) {
         if ((listener != null) && (propertyName != null)) {
-            PropertyChangeSupport listeners = children.get(propertyName);
-
-            if (listeners == null) {
-                listeners = new PropertyChangeSupport(source);
-                children.put(propertyName, listeners);
-            }
+            PropertyKey key = propertyKey(propertyName);
 
             // RI compatibility
             if (listener instanceof kava.beans.PropertyChangeListenerProxy) {
                 kava.beans.PropertyChangeListenerProxy proxy = (kava.beans.PropertyChangeListenerProxy) listener;
 
-                listeners
-                        .addPropertyChangeListener(new kava.beans.PropertyChangeListenerProxy(
-                                proxy.getPropertyName(),
-                                (kava.beans.PropertyChangeListener) proxy.getListener()));
+                key.listeners = add(key.listeners,
+                        new kava.beans.PropertyChangeListenerProxy(proxy
+                                .getPropertyName(),
+                                (kava.beans.PropertyChangeListener) proxy
+                                        .getListener()));
             } else {
-                listeners.addPropertyChangeListener(listener);
+                key.listeners = add(key.listeners, listener);
             }
         }
     }
 
     public synchronized kava.beans.PropertyChangeListener[] getPropertyChangeListeners(
             String propertyName) {
-        PropertyChangeSupport listeners = null;
+        PropertyKey key = null;
+
+        if (propertyName != null) {
+            key = propertyKeys.get(propertyName);
+        }
+
+        return (key == null) ? new kava.beans.PropertyChangeListener[0]
+                : unwrap(key.listeners, null);
+    }
+
+    /**
+     * Adds a listener of all the properties which is only weakly referenced,
+     * so that it does not prevent its collection. Once collected it is
+     * removed from this object. The listener is not serialized. It may be
+     * removed by {@link #removePropertyChangeListener(PropertyChangeListener)}.
+     * 
+     * @param listener
+     *            the listener to add.
+     */
+    public void addWeakPropertyChangeListener(
+            kava.beans.PropertyChangeListener listener) {
+        addReferenceListener(null, listener, false);
+    }
+
+    /**
+     * Adds a listener of the named property which is only weakly referenced,
+     * see {@link #addWeakPropertyChangeListener(PropertyChangeListener)}.
+     * 
+     * @param propertyName
+     *            the name of the property.
+     * @param listener
+     *            the listener to add.
+     */
+    public void addWeakPropertyChangeListener(String propertyName,
+            kava.beans.PropertyChangeListener listener) {
+        if (propertyName != null) {
+            addReferenceListener(propertyName, listener, false);
+        }
+    }
+
+    /**
+     * Adds a listener of all the properties which is only softly referenced,
+     * so that it is kept until the memory runs short. Once collected it is
+     * removed from this object. The listener is not serialized. It may be
+     * removed by {@link #removePropertyChangeListener(PropertyChangeListener)}.
+     * 
+     * @param listener
+     *            the listener to add.
+     */
+    public void addSoftPropertyChangeListener(
+            kava.beans.PropertyChangeListener listener) {
+        addReferenceListener(null, listener, true);
+    }
 
+    /**
+     * Adds a listener of the named property which is only softly referenced,
+     * see {@link #addSoftPropertyChangeListener(PropertyChangeListener)}.
+     * 
+     * @param propertyName
+     *            the name of the property.
+     * @param listener
+     *            the listener to add.
+     */
+    public void addSoftPropertyChangeListener(String propertyName,
+            kava.beans.PropertyChangeListener listener) {
         if (propertyName != null) {
-            listeners = children.get(propertyName);
+            addReferenceListener(propertyName, listener, true);
         }
+    }
 
-        return (listeners == null) ? new kava.beans.PropertyChangeListener[0]
-                : listeners.getPropertyChangeListeners();
+    private synchronized void addReferenceListener(String propertyName,
+            kava.beans.PropertyChangeListener listener, boolean soft) {
+        if (listener instanceof kava.beans.PropertyChangeListenerProxy) {
+            kava.beans.PropertyChangeListenerProxy proxy = (kava.beans.PropertyChangeListenerProxy) listener;
+            propertyName = proxy.getPropertyName();
+            listener = (kava.beans.PropertyChangeListener) proxy.getListener();
+        }
+        if (listener == null) {
+            return;
+        }
+        if (collectedListeners == null) {
+            collectedListeners = new ReferenceQueue<Object>();
+        } else {
+            purgeCollectedListeners();
+        }
+        ReferenceListener reference = new ReferenceListener(listener, soft,
+                collectedListeners);
+        if (propertyName == null) {
+            globalListeners = add(globalListeners, reference);
+        } else {
+            PropertyKey key = propertyKey(propertyName);
+            key.listeners = add(key.listeners, reference);
+        }
     }
 
+    /*
+     * Removes the listeners which were collected, if any, without
+     * allocating otherwise.
+     */
+    private void purgeCollectedListeners() {
+        ReferenceQueue<Object> queue = collectedListeners;
+        if (queue == null || queue.poll() == null) {
+            return;
+        }
+        synchronized (this) {
+            while (queue.poll() != null) {
+                // the arrays are swept at once
+            }
+            globalListeners = purge(globalListeners);
+            for (PropertyKey key : propertyKeys.values()) {
+                key.listeners = purge(key.listeners);
+            }
+        }
+    }
+
+    private static kava.beans.PropertyChangeListener[] purge(
+            kava.beans.PropertyChangeListener[] listeners) {
+        ArrayList<kava.beans.PropertyChangeListener> result = null;
+        for (int i = 0; i < listeners.length; i++) {
+            boolean collected = listeners[i] instanceof ReferenceListener
+                    && ((ReferenceListener) listeners[i]).get() == null;
+            if (collected && result == null) {
+                result = new ArrayList<kava.beans.PropertyChangeListener>(
+                        listeners.length);
+                for (int j = 0; j < i; j++) {
+                    result.add(listeners[j]);
+                }
+            } else if (!collected && result != null) {
+                result.add(listeners[i]);
+            }
+        }
+        if (result == null) {
+            return listeners;
+        }
+        return result.isEmpty() ? EMPTY : result
+                .toArray(new kava.beans.PropertyChangeListener[result.size()]);
+    }
+
+    /*
+     * Copies the listeners as they were added, skipping the collected ones
+     * and wrapping the others in proxies of the property if it is not null.
+     */
+    private static kava.beans.PropertyChangeListener[] unwrap(
+            kava.beans.PropertyChangeListener[] listeners, String propertyName) {
+        ArrayList<kava.beans.PropertyChangeListener> result = new ArrayList<kava.beans.PropertyChangeListener>(
+                listeners.length);
+        for (int i = 0; i < listeners.length; i++) {
+            kava.beans.PropertyChangeListener listener = (kava.beans.PropertyChangeListener) ReferenceListener
+                    .unwrap(listeners[i]);
+            if (listener != null) {
+                result.add(propertyName == null ? listener
+                        : new PropertyChangeListenerProxy(propertyName,
+                                listener));
+            }
+        }
+        return result.toArray(new kava.beans.PropertyChangeListener[result
+                .size()]);
+    }
+
+    /**
+     * Answers the key of the named property. Changes fired through the key
+     * reach the listeners of the property without looking them up by name, so
+     * a bean firing often should obtain the keys of its properties once. The
+     * key stays the same for the lifetime of this object.
+     * 
+     * @param propertyName
+     *            the name of the property.
+     * @return the key of the property.
+     */
+    public PropertyKey propertyKey(String propertyName) {
+        if (propertyName == null) {
+            throw new NullPointerException();
+        }
+        PropertyKey key = propertyKeys.get(propertyName);
+        if (key == null) {
+            PropertyKey newKey = new PropertyKey(this, propertyName);
+            key = propertyKeys.putIfAbsent(propertyName, newKey);
+            if (key == null) {
+                key = newKey;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Fires a property change of a <code>boolean</code> property. Nothing is
+     * created if the values are equal or there are no listeners for the
+     * property.
+     */
     public void firePropertyChange(String propertyName, boolean oldValue,
             boolean newValue) {
+        if (oldValue == newValue || !isListened(propertyName)) {
+            return;
+        }
         kava.beans.PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
                 oldValue, newValue);
-        doFirePropertyChange(event);
+        doFirePropertyChange(event, null);
     }
 
     public void fireIndexedPropertyChange(String propertyName, int index,
             boolean oldValue, boolean newValue) {
 
-        if (oldValue != newValue) {
+        if (oldValue != newValue && isListened(propertyName)) {
             fireIndexedPropertyChange(propertyName, index, Boolean
                     .valueOf(oldValue), Boolean.valueOf(newValue));
         }
     }
 
+    /**
+     * Fires a property change of an <code>int</code> property. Nothing is
+     * created if the values are equal or there are no listeners for the
+     * property.
+     */
     public void firePropertyChange(String propertyName, int oldValue,
             int newValue) {
-        kava.beans.PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
-                oldValue, newValue);
-        doFirePropertyChange(event);
+        if (oldValue == newValue || !isListened(propertyName)) {
+            return;
+        }
+        // the values are known to differ
+        dispatch(new IntPropertyChangeEvent(source, propertyName, oldValue,
+                newValue), null);
     }
 
     public void fireIndexedPropertyChange(String propertyName, int index,
             int oldValue, int newValue) {
 
-        if (oldValue != newValue) {
+        if (oldValue != newValue && isListened(propertyName)) {
             fireIndexedPropertyChange(propertyName, index,
                     Integer.valueOf(oldValue), Integer.valueOf(newValue));
         }
     }
 
-    public synchronized boolean hasListeners(String propertyName) {
-        if(globalListeners.size() > 0){
+    /**
+     * Fires a property change of a <code>long</code> property with a
+     * {@link LongPropertyChangeEvent}, which boxes the values only when they
+     * are read as objects. Nothing is created if the values are equal or
+     * there are no listeners for the property.
+     */
+    public void fireLongPropertyChange(String propertyName, long oldValue,
+            long newValue) {
+        if (oldValue == newValue || !isListened(propertyName)) {
+            return;
+        }
+        dispatch(new LongPropertyChangeEvent(source, propertyName, oldValue,
+                newValue), null);
+    }
+
+    /**
+     * Fires a property change of a <code>double</code> property with a
+     * {@link DoublePropertyChangeEvent}, which boxes the values only when they
+     * are read as objects. Nothing is created if the values are equal, as defined by
+     * <code>Double.equals</code>, or
+     * there are no listeners for the property.
+     */
+    public void fireDoublePropertyChange(String propertyName, double oldValue,
+            double newValue) {
+        if (Double.doubleToLongBits(oldValue) == Double
+                .doubleToLongBits(newValue)
+                || !isListened(propertyName)) {
+            return;
+        }
+        dispatch(new DoublePropertyChangeEvent(source, propertyName, oldValue,
+                newValue), null);
+    }
+
+    /**
+     * Fires a property change of a <code>float</code> property with a
+     * {@link FloatPropertyChangeEvent}, which boxes the values only when they
+     * are read as objects. Nothing is created if the values are equal, as defined by
+     * <code>Float.equals</code>, or
+     * there are no listeners for the property.
+     */
+    public void fireFloatPropertyChange(String propertyName, float oldValue,
+            float newValue) {
+        if (Float.floatToIntBits(oldValue) == Float
+                .floatToIntBits(newValue)
+                || !isListened(propertyName)) {
+            return;
+        }
+        dispatch(new FloatPropertyChangeEvent(source, propertyName, oldValue,
+                newValue), null);
+    }
+
+    /**
+     * Fires a property change of a <code>char</code> property with a
+     * {@link CharPropertyChangeEvent}, which boxes the values only when they
+     * are read as objects. Nothing is created if the values are equal or
+     * there are no listeners for the property.
+     */
+    public void fireCharPropertyChange(String propertyName, char oldValue,
+            char newValue) {
+        if (oldValue == newValue || !isListened(propertyName)) {
+            return;
+        }
+        dispatch(new CharPropertyChangeEvent(source, propertyName, oldValue,
+                newValue), null);
+    }
+
+    /**
+     * Fires a property change of a <code>short</code> property with a
+     * {@link ShortPropertyChangeEvent}, which boxes the values only when they
+     * are read as objects. Nothing is created if the values are equal or
+     * there are no listeners for the property.
+     */
+    public void fireShortPropertyChange(String propertyName, short oldValue,
+            short newValue) {
+        if (oldValue == newValue || !isListened(propertyName)) {
+            return;
+        }
+        dispatch(new ShortPropertyChangeEvent(source, propertyName, oldValue,
+                newValue), null);
+    }
+
+    public boolean hasListeners(String propertyName) {
+        return isListened(propertyName);
+    }
+
+    /*
+     * Checks without locking whether a change of the property would reach
+     * any listener, used to skip firing before anything is allocated.
+     */
+    private boolean isListened(String propertyName) {
+        if (globalListeners.length > 0) {
             return true;
         }
         boolean result = false;
         if (propertyName != null) {
-            PropertyChangeSupport listeners = children.get(propertyName);
-            result = (listeners != null && listeners.hasListeners(propertyName));
+            PropertyKey key = propertyKeys.get(propertyName);
+            result = (key != null && key.listeners.length > 0);
         }
         return result;
     }
@@ -163,7 +486,7 @@ public class PropertyChangeSupport implements Serializable {
 
             removePropertyChangeListener(name, lst);
         } else {
-            globalListeners.remove(listener);
+            globalListeners = remove(globalListeners, listener);
         }
     }
 
@@ -176,30 +499,211 @@ public class PropertyChangeSupport implements Serializable {
                     .getListener();
             addPropertyChangeListener(name, lst);
         } else if(listener != null){
-            globalListeners.add(listener);
+            globalListeners = add(globalListeners, listener);
+        }
+    }
+
+    private static kava.beans.PropertyChangeListener[] add(
+            kava.beans.PropertyChangeListener[] listeners,
+            kava.beans.PropertyChangeListener listener) {
+        kava.beans.PropertyChangeListener[] result = new kava.beans.PropertyChangeListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, result, 0, listeners.length);
+        result[listeners.length] = listener;
+        return result;
+    }
+
+    /*
+     * Removes the first listener equal to the given one, like List.remove.
+     */
+    private static kava.beans.PropertyChangeListener[] remove(
+            kava.beans.PropertyChangeListener[] listeners,
+            kava.beans.PropertyChangeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listener == null ? listeners[i] == null : ReferenceListener
+                    .matches(listeners[i], listener)) {
+                if (listeners.length == 1) {
+                    return EMPTY;
+                }
+                kava.beans.PropertyChangeListener[] result = new kava.beans.PropertyChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, result, 0, i);
+                System.arraycopy(listeners, i + 1, result, i, result.length - i);
+                return result;
+            }
+        }
+        return listeners;
+    }
+
+    /**
+     * Starts a batch of changes. Until the matching {@link #endBatch()}, the
+     * changes fired through this object, from any thread, are collected
+     * instead of being passed to the listeners, and repeated changes of the
+     * same property are merged into one change from the first old value to
+     * the last new value. Batches may be nested, the changes are fired when
+     * the outermost batch ends.
+     */
+    public synchronized void beginBatch() {
+        if (batchDepth++ == 0) {
+            batch = new Batch();
+        }
+    }
+
+    /**
+     * Ends a batch of changes started by {@link #beginBatch()}. When the
+     * outermost batch ends, its changes are fired: each
+     * {@link BatchPropertyChangeListener} receives them at once, the other
+     * listeners receive one event per change. The listeners of all the
+     * properties are notified before the listeners of single properties.
+     * Changes which end with the value they started with are not fired.
+     * 
+     * @throws IllegalStateException
+     *             if no batch was started.
+     */
+    public void endBatch() {
+        PropertyChangeEvent[] events;
+        synchronized (this) {
+            if (batchDepth == 0) {
+                throw new IllegalStateException();
+            }
+            if (--batchDepth > 0) {
+                return;
+            }
+            events = batch.getEvents();
+            batch = null;
         }
+        if (events.length > 0) {
+            AsyncDispatcher dispatcher = asyncDispatcher;
+            if (dispatcher == null || !dispatcher.enqueue(events)) {
+                dispatchBatch(events);
+            }
+        }
+    }
+
+    /**
+     * Installs a recorder of the changes passed to the listeners, or removes
+     * it if null, which is the default. Without a recorder nothing is
+     * measured.
+     * 
+     * @param metrics
+     *            the recorder, may be shared with other supports.
+     */
+    public void setDispatchMetrics(DispatchMetrics metrics) {
+        dispatchMetrics = metrics;
+    }
+
+    /**
+     * Answers the recorder of the changes passed to the listeners.
+     * 
+     * @return the recorder, or null if none is installed.
+     */
+    public DispatchMetrics getDispatchMetrics() {
+        return dispatchMetrics;
+    }
+
+    /**
+     * Makes this object pass the changes to the listeners asynchronously.
+     * The fired changes are queued and delivered by tasks run on the given
+     * executor, which may for example start a virtual thread per task. At
+     * most one task of this object runs at a time, so the listeners receive
+     * the changes one by one in the order they were fired. A batch ended by
+     * {@link #endBatch()} is queued as one entry.
+     * <p>
+     * The capacity limits the number of queued entries, the policy tells what
+     * happens when a change is fired while the queue is full. A change fired
+     * by a listener while it is notified never waits for room, since the
+     * queue could not drain. An exception thrown by a listener is passed to
+     * the uncaught exception handler of the executing thread.
+     * <p>
+     * The changes already queued when the dispatch is changed are delivered
+     * before the changes fired afterwards, by the executor they were queued
+     * for.
+     * 
+     * @param executor
+     *            the executor running the delivery tasks.
+     * @param capacity
+     *            the maximum number of queued entries.
+     * @param policy
+     *            the policy applied when the queue is full.
+     * @throws IllegalArgumentException
+     *             if the capacity is not positive.
+     * @see #setSynchronousDispatch()
+     */
+    public void setAsynchronousDispatch(Executor executor, int capacity,
+            BackpressurePolicy policy) {
+        if (executor == null || policy == null) {
+            throw new NullPointerException();
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException();
+        }
+        AsyncDispatcher next = new AsyncDispatcher(executor, capacity, policy);
+        synchronized (this) {
+            AsyncDispatcher current = asyncDispatcher;
+            if (current != null) {
+                current.retire(next);
+            }
+            asyncDispatcher = next;
+        }
+    }
+
+    /**
+     * Makes this object pass the changes to the listeners in the firing
+     * thread, which is the default. The changes already queued by an
+     * asynchronous dispatch are still delivered by its executor, and the
+     * changes fired before they are delivered are queued behind them, so
+     * that the listeners receive all the changes in the order they were
+     * fired.
+     */
+    public void setSynchronousDispatch() {
+        synchronized (this) {
+            AsyncDispatcher current = asyncDispatcher;
+            if (current != null && !current.retire(null)) {
+                asyncDispatcher = null;
+            }
+        }
+    }
+
+    /**
+     * Answers whether the changes are passed to the listeners asynchronously.
+     * 
+     * @return true after {@link #setAsynchronousDispatch}.
+     */
+    public boolean isAsynchronousDispatch() {
+        AsyncDispatcher dispatcher = asyncDispatcher;
+        return dispatcher != null && !dispatcher.isRetired();
     }
 
     public synchronized kava.beans.PropertyChangeListener[] getPropertyChangeListeners() {
+        kava.beans.PropertyChangeListener[] gListeners = unwrap(
+                globalListeners, null);
         ArrayList<kava.beans.PropertyChangeListener> result = new ArrayList<kava.beans.PropertyChangeListener>(
-                globalListeners);
-        for (String propertyName : children.keySet()) {
-            PropertyChangeSupport namedListener = children
-                    .get(propertyName);
-            kava.beans.PropertyChangeListener[] listeners = namedListener
-                    .getPropertyChangeListeners();
+                gListeners.length);
+        for (int i = 0; i < gListeners.length; i++) {
+            result.add(gListeners[i]);
+        }
+        for (Map.Entry<String, PropertyKey> entry : propertyKeys.entrySet()) {
+            kava.beans.PropertyChangeListener[] listeners = unwrap(entry
+                    .getValue().listeners, entry.getKey());
             for (int i = 0; i < listeners.length; i++) {
-                result.add(new PropertyChangeListenerProxy(propertyName,
-                        listeners[i]));
+                result.add(listeners[i]);
             }
         }
         return result.toArray(new kava.beans.PropertyChangeListener[0]);
     }
 
+    /*
+     * Writes the fields of the original form, without the nested support of
+     * each property, followed by the serializable global listeners ending
+     * with null as in the original form. Version 2 of the form then holds
+     * the names of the listened properties and their listener arrays.
+     */
     private void writeObject(ObjectOutputStream oos) throws IOException {
-        oos.defaultWriteObject();
-        kava.beans.PropertyChangeListener[] gListeners = globalListeners
-                .toArray(new kava.beans.PropertyChangeListener[0]);
+        ObjectOutputStream.PutField fields = oos.putFields();
+        fields.put("children", null); //$NON-NLS-1$
+        fields.put("source", source); //$NON-NLS-1$
+        fields.put("propertyChangeSupportSerializedDataVersion", //$NON-NLS-1$
+                COMPACT_FORM_VERSION);
+        oos.writeFields();
+        kava.beans.PropertyChangeListener[] gListeners = globalListeners;
         for (int i = 0; i < gListeners.length; i++) {
             if (gListeners[i] instanceof Serializable) {
                 oos.writeObject(gListeners[i]);
@@ -208,27 +712,113 @@ public class PropertyChangeSupport implements Serializable {
         // Denotes end of list
         oos.writeObject(null);
 
+        ArrayList<String> names = new ArrayList<String>();
+        ArrayList<kava.beans.PropertyChangeListener[]> listeners = new ArrayList<kava.beans.PropertyChangeListener[]>();
+        for (PropertyKey key : propertyKeys.values()) {
+            kava.beans.PropertyChangeListener[] keyListeners = serializable(key.listeners);
+            if (keyListeners.length > 0) {
+                names.add(key.propertyName);
+                listeners.add(keyListeners);
+            }
+        }
+        oos.writeObject(names.toArray(new String[names.size()]));
+        oos.writeObject(listeners
+                .toArray(new kava.beans.PropertyChangeListener[listeners.size()][]));
     }
 
+    private static kava.beans.PropertyChangeListener[] serializable(
+            kava.beans.PropertyChangeListener[] listeners) {
+        int count = 0;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] instanceof Serializable) {
+                count++;
+            }
+        }
+        if (count == listeners.length) {
+            return listeners;
+        }
+        kava.beans.PropertyChangeListener[] result = new kava.beans.PropertyChangeListener[count];
+        count = 0;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] instanceof Serializable) {
+                result[count++] = listeners[i];
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
     private void readObject(ObjectInputStream ois) throws IOException,
             ClassNotFoundException {
-        ois.defaultReadObject();
-        this.globalListeners = new LinkedList<kava.beans.PropertyChangeListener>();
-        if (null == this.children) {
-            this.children = new Hashtable<String, PropertyChangeSupport>();
+        ObjectInputStream.GetField fields = ois.readFields();
+        this.source = fields.get("source", null); //$NON-NLS-1$
+        this.propertyChangeSupportSerializedDataVersion = fields.get(
+                "propertyChangeSupportSerializedDataVersion", 1); //$NON-NLS-1$
+        this.globalListeners = EMPTY;
+        this.propertyKeys = new ConcurrentHashMap<String, PropertyKey>();
+        Hashtable<String, PropertyChangeSupport> children = (Hashtable<String, PropertyChangeSupport>) fields
+                .get("children", null); //$NON-NLS-1$
+        if (children != null) {
+            for (Map.Entry<String, PropertyChangeSupport> entry : children
+                    .entrySet()) {
+                propertyKey(entry.getKey()).listeners = entry.getValue()
+                        .getPropertyChangeListeners();
+            }
         }
+        ArrayList<kava.beans.PropertyChangeListener> listeners = new ArrayList<kava.beans.PropertyChangeListener>();
         Object listener = null;
         do {
             // Reads a listener _or_ proxy
             listener = ois.readObject();
-            if (listener != null) {
+            if (listener instanceof kava.beans.PropertyChangeListenerProxy) {
                 addPropertyChangeListener((kava.beans.PropertyChangeListener) listener);
+            } else if (listener != null) {
+                listeners.add((kava.beans.PropertyChangeListener) listener);
             }
         } while (listener != null);
+        if (!listeners.isEmpty()) {
+            this.globalListeners = listeners
+                    .toArray(new kava.beans.PropertyChangeListener[listeners
+                            .size()]);
+        }
+
+        if (propertyChangeSupportSerializedDataVersion >= COMPACT_FORM_VERSION) {
+            readPropertyListeners(ois.readObject(), ois.readObject());
+        }
+    }
+
+    /*
+     * Installs the listener arrays of the properties as read, without
+     * copying them one listener at a time.
+     */
+    private void readPropertyListeners(Object names, Object listeners)
+            throws InvalidObjectException {
+        if (!(names instanceof String[])
+                || !(listeners instanceof kava.beans.PropertyChangeListener[][])
+                || ((String[]) names).length != ((kava.beans.PropertyChangeListener[][]) listeners).length) {
+            throw new InvalidObjectException("PropertyChangeSupport"); //$NON-NLS-1$
+        }
+        String[] propertyNames = (String[]) names;
+        kava.beans.PropertyChangeListener[][] propertyListeners = (kava.beans.PropertyChangeListener[][]) listeners;
+        for (int i = 0; i < propertyNames.length; i++) {
+            kava.beans.PropertyChangeListener[] keyListeners = propertyListeners[i];
+            if (propertyNames[i] == null || keyListeners == null) {
+                throw new InvalidObjectException("PropertyChangeSupport"); //$NON-NLS-1$
+            }
+            for (int j = 0; j < keyListeners.length; j++) {
+                if (keyListeners[j] == null) {
+                    throw new InvalidObjectException(
+                            "PropertyChangeSupport"); //$NON-NLS-1$
+                }
+            }
+            // the arrays are never modified, only replaced
+            propertyKey(propertyNames[i]).listeners = (keyListeners.length == 0) ? EMPTY
+                    : keyListeners;
+        }
     }
 
     public void firePropertyChange(kava.beans.PropertyChangeEvent event) {
-        doFirePropertyChange(event);
+        doFirePropertyChange(event, null);
     }
 
     private kava.beans.PropertyChangeEvent createPropertyChangeEvent(String propertyName,
@@ -242,39 +832,670 @@ public class PropertyChangeSupport implements Serializable {
         return new kava.beans.PropertyChangeEvent(source, propertyName, oldValue, newValue);
     }
 
-    @SuppressWarnings("boxing")
-    private kava.beans.PropertyChangeEvent createPropertyChangeEvent(String propertyName,
-            int oldValue, int newValue) {
-        return new kava.beans.PropertyChangeEvent(source, propertyName, oldValue, newValue);
-    }
-
-    private void doFirePropertyChange(PropertyChangeEvent event) {
+    private void doFirePropertyChange(PropertyChangeEvent event,
+            PropertyKey key) {
         Object oldValue = event.getOldValue();
         Object newValue = event.getNewValue();
         if (oldValue != null && newValue != null && oldValue.equals(newValue)) {
             return;
         }
+        dispatch(event, key);
+    }
 
-        // Collect up the global listeners
-        kava.beans.PropertyChangeListener[] gListeners;
-        synchronized(this) {
-            gListeners = globalListeners.toArray(new PropertyChangeListener[0]);
+    /*
+     * Fires the event to the listeners without comparing its values, which
+     * would box the values of a primitive event. The key of the property of
+     * the event is looked up if null.
+     */
+    private void dispatch(PropertyChangeEvent event, PropertyKey key) {
+        if (batch != null && collect(event)) {
+            return;
         }
+        AsyncDispatcher dispatcher = asyncDispatcher;
+        if (dispatcher != null && dispatcher.enqueue(event)) {
+            return;
+        }
+        deliver(event, key);
+    }
+
+    private void deliver(PropertyChangeEvent event, PropertyKey key) {
+        purgeCollectedListeners();
+
+        DispatchMetrics metrics = dispatchMetrics;
+
+        // The global listeners, replaced as a whole on changes
+        kava.beans.PropertyChangeListener[] gListeners = globalListeners;
 
         // Fire the events for global listeners
         for (int i = 0; i < gListeners.length; i++) {
-            gListeners[i].propertyChange(event);
+            notify(gListeners[i], event, metrics);
         }
 
         // Fire the events for the property specific listeners if any
-        if (event.getPropertyName() != null) {
-            PropertyChangeSupport namedListener = children
-                    .get(event.getPropertyName());
-            if (namedListener != null) {
-                namedListener.firePropertyChange(event);
+        if (key == null && event.getPropertyName() != null) {
+            key = propertyKeys.get(event.getPropertyName());
+        }
+        kava.beans.PropertyChangeListener[] listeners = (key == null) ? EMPTY
+                : key.listeners;
+        for (int i = 0; i < listeners.length; i++) {
+            notify(listeners[i], event, metrics);
+        }
+
+        if (metrics != null) {
+            metrics.recordFire(event.getPropertyName(), gListeners.length
+                    + listeners.length);
+        }
+    }
+
+    private static void notify(kava.beans.PropertyChangeListener listener,
+            PropertyChangeEvent event, DispatchMetrics metrics) {
+        if (metrics == null) {
+            listener.propertyChange(event);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            listener.propertyChange(event);
+        } finally {
+            metrics.recordLatency(listener, System.nanoTime() - start);
+        }
+    }
+
+    private synchronized boolean collect(PropertyChangeEvent event) {
+        if (batch == null) {
+            return false;
+        }
+        batch.add(event);
+        return true;
+    }
+
+    private void dispatchBatch(PropertyChangeEvent[] events) {
+        purgeCollectedListeners();
+        DispatchMetrics metrics = dispatchMetrics;
+        kava.beans.PropertyChangeListener[] gListeners = globalListeners;
+        for (int i = 0; i < gListeners.length; i++) {
+            dispatchBatch(gListeners[i], events, metrics);
+        }
+
+        // The events of each named property, in the order of the batch
+        LinkedHashMap<String, ArrayList<PropertyChangeEvent>> named = new LinkedHashMap<String, ArrayList<PropertyChangeEvent>>();
+        for (int i = 0; i < events.length; i++) {
+            String propertyName = events[i].getPropertyName();
+            if (propertyName == null) {
+                continue;
+            }
+            ArrayList<PropertyChangeEvent> list = named.get(propertyName);
+            if (list == null) {
+                list = new ArrayList<PropertyChangeEvent>();
+                named.put(propertyName, list);
+            }
+            list.add(events[i]);
+        }
+        for (Map.Entry<String, ArrayList<PropertyChangeEvent>> entry : named
+                .entrySet()) {
+            PropertyKey key = propertyKeys.get(entry.getKey());
+            if (key == null) {
+                continue;
+            }
+            ArrayList<PropertyChangeEvent> list = entry.getValue();
+            PropertyChangeEvent[] namedEvents = list
+                    .toArray(new PropertyChangeEvent[list.size()]);
+            kava.beans.PropertyChangeListener[] listeners = key.listeners;
+            for (int i = 0; i < listeners.length; i++) {
+                dispatchBatch(listeners[i], namedEvents, metrics);
             }
         }
 
+        if (metrics != null) {
+            for (int i = 0; i < events.length; i++) {
+                String propertyName = events[i].getPropertyName();
+                PropertyKey key = (propertyName == null) ? null
+                        : propertyKeys.get(propertyName);
+                metrics.recordFire(propertyName, gListeners.length
+                        + (key == null ? 0 : key.listeners.length));
+            }
+        }
+    }
+
+    private static void dispatchBatch(kava.beans.PropertyChangeListener listener,
+            PropertyChangeEvent[] events, DispatchMetrics metrics) {
+        if (metrics != null) {
+            long start = System.nanoTime();
+            try {
+                dispatchBatch(listener, events, null);
+            } finally {
+                metrics.recordLatency(listener, System.nanoTime() - start);
+            }
+        } else if (listener instanceof BatchPropertyChangeListener) {
+            ((BatchPropertyChangeListener) listener).propertiesChanged(events
+                    .clone());
+        } else {
+            for (int i = 0; i < events.length; i++) {
+                listener.propertyChange(events[i]);
+            }
+        }
     }
 
+    /*
+     * The changes of a batch in the order of their first change, with the
+     * changes of the same property merged.
+     */
+    private class Batch {
+
+        private final ArrayList<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+
+        // the position of the merged change of each property in events
+        private final HashMap<String, Integer> positions = new HashMap<String, Integer>();
+
+        void add(PropertyChangeEvent event) {
+            String propertyName = event.getPropertyName();
+            if (propertyName == null
+                    || event instanceof IndexedPropertyChangeEvent) {
+                events.add(event);
+                return;
+            }
+            Integer position = positions.get(propertyName);
+            if (position == null) {
+                positions.put(propertyName, Integer.valueOf(events.size()));
+                events.add(event);
+            } else {
+                int i = position.intValue();
+                events.set(i, merge(events.get(i), event));
+            }
+        }
+
+        PropertyChangeEvent[] getEvents() {
+            ArrayList<PropertyChangeEvent> result = new ArrayList<PropertyChangeEvent>(
+                    events.size());
+            for (PropertyChangeEvent event : events) {
+                if (!isUnchanged(event)) {
+                    result.add(event);
+                }
+            }
+            return result.toArray(new PropertyChangeEvent[result.size()]);
+        }
+    }
+
+    /**
+     * The key of a property of a {@link PropertyChangeSupport}, holding the
+     * listeners of the property and firing its changes.
+     * 
+     * @see PropertyChangeSupport#propertyKey(String)
+     */
+    public static final class PropertyKey {
+
+        private final PropertyChangeSupport support;
+
+        private final String propertyName;
+
+        // replaced as a whole under the lock of the support
+        private volatile kava.beans.PropertyChangeListener[] listeners = EMPTY;
+
+        private PropertyKey(PropertyChangeSupport support, String propertyName) {
+            this.support = support;
+            this.propertyName = propertyName;
+        }
+
+        /**
+         * Answers the name of the property.
+         * 
+         * @return the name of the property.
+         */
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        /**
+         * Answers whether a change of the property would reach any listener.
+         * 
+         * @return true if the property or all the properties are listened to.
+         */
+        public boolean hasListeners() {
+            return support.globalListeners.length > 0 || listeners.length > 0;
+        }
+
+        /**
+         * Fires a change of the property, see
+         * {@link PropertyChangeSupport#firePropertyChange(String, Object, Object)}.
+         */
+        public void firePropertyChange(Object oldValue, Object newValue) {
+            if (!hasListeners()) {
+                return;
+            }
+            support.doFirePropertyChange(support.createPropertyChangeEvent(
+                    propertyName, oldValue, newValue), this);
+        }
+
+        /**
+         * Fires a change of the <code>boolean</code> property, see
+         * {@link PropertyChangeSupport#firePropertyChange(String, boolean, boolean)}.
+         */
+        public void firePropertyChange(boolean oldValue, boolean newValue) {
+            if (oldValue == newValue || !hasListeners()) {
+                return;
+            }
+            support.dispatch(support.createPropertyChangeEvent(propertyName,
+                    oldValue, newValue), this);
+        }
+
+        /**
+         * Fires a change of the <code>int</code> property, see
+         * {@link PropertyChangeSupport#firePropertyChange(String, int, int)}.
+         */
+        public void firePropertyChange(int oldValue, int newValue) {
+            if (oldValue == newValue || !hasListeners()) {
+                return;
+            }
+            support.dispatch(new IntPropertyChangeEvent(support.source,
+                    propertyName, oldValue, newValue), this);
+        }
+
+        /**
+         * Fires a change of the <code>long</code> property, see
+         * {@link PropertyChangeSupport#fireLongPropertyChange(String, long, long)}.
+         */
+        public void firePropertyChange(long oldValue, long newValue) {
+            if (oldValue == newValue || !hasListeners()) {
+                return;
+            }
+            support.dispatch(new LongPropertyChangeEvent(support.source,
+                    propertyName, oldValue, newValue), this);
+        }
+
+        /**
+         * Fires a change of the <code>double</code> property, see
+         * {@link PropertyChangeSupport#fireDoublePropertyChange(String, double, double)}.
+         */
+        public void firePropertyChange(double oldValue, double newValue) {
+            if (Double.doubleToLongBits(oldValue) == Double
+                    .doubleToLongBits(newValue)
+                    || !hasListeners()) {
+                return;
+            }
+            support.dispatch(new DoublePropertyChangeEvent(support.source,
+                    propertyName, oldValue, newValue), this);
+        }
+
+        @Override
+        public String toString() {
+            return propertyName;
+        }
+    }
+
+    /**
+     * The policies applied by an asynchronous {@link PropertyChangeSupport}
+     * when a change is fired while its queue is full.
+     * 
+     * @see PropertyChangeSupport#setAsynchronousDispatch
+     */
+    public static enum BackpressurePolicy {
+
+        /**
+         * The firing thread waits until the queue has room.
+         */
+        BLOCK,
+
+        /**
+         * The oldest queued entry is discarded.
+         */
+        DROP_OLDEST,
+
+        /**
+         * The change is merged into the last queued change of the same
+         * property, if any, which then goes from its old value to the new
+         * value of the fired change. Otherwise the firing thread waits as
+         * with {@link #BLOCK}.
+         */
+        COALESCE
+    }
+
+    /*
+     * The queue of the changes fired asynchronously, holding events and the
+     * event arrays of batches. It is drained by at most one task at a time.
+     * When the dispatch is changed while changes are queued, the dispatcher
+     * is retired and the next one is held until the queue is drained, so the
+     * dispatchers deliver one after the other.
+     */
+    private final class AsyncDispatcher implements Runnable {
+
+        private final Executor executor;
+
+        private final int capacity;
+
+        private final BackpressurePolicy policy;
+
+        // guarded by this object, like the fields below
+        private final LinkedList<Object> queue = new LinkedList<Object>();
+
+        // whether a task draining the queue was submitted
+        private boolean draining;
+
+        // the thread running the draining task
+        private Thread drainThread;
+
+        // whether the queue waits for the previous dispatcher to drain
+        private boolean held;
+
+        // whether the dispatch was changed, the changes then go to the
+        // successor, or are delivered synchronously if there is none, once
+        // the queue is drained
+        private boolean retired;
+
+        private AsyncDispatcher successor;
+
+        AsyncDispatcher(Executor executor, int capacity,
+                BackpressurePolicy policy) {
+            this.executor = executor;
+            this.capacity = capacity;
+            this.policy = policy;
+        }
+
+        /*
+         * Queues the entry, answers false if the dispatcher is retired and
+         * drained and there is no successor, the entry is then to be
+         * delivered synchronously.
+         */
+        boolean enqueue(Object entry) {
+            AsyncDispatcher next;
+            synchronized (this) {
+                if (queue.size() >= capacity && !makeRoom(entry)) {
+                    return true;
+                }
+                // checked after waiting for room, the queue may have drained
+                if (retired && !isPending()) {
+                    next = successor;
+                } else {
+                    queue.addLast(entry);
+                    if (draining || held) {
+                        return true;
+                    }
+                    draining = true;
+                    next = this;
+                }
+            }
+            if (next != this) {
+                return next != null && next.enqueue(entry);
+            }
+            try {
+                executor.execute(this);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    draining = false;
+                    queue.removeLastOccurrence(entry);
+                }
+                throw e;
+            }
+            return true;
+        }
+
+        synchronized boolean isRetired() {
+            return retired;
+        }
+
+        // whether changes are queued or being delivered, guarded by this
+        private boolean isPending() {
+            return draining || held || !queue.isEmpty();
+        }
+
+        /*
+         * Retires this dispatcher for the given successor, or for the
+         * synchronous dispatch if null. Answers whether changes are still
+         * pending, the successor is then held until they are delivered.
+         */
+        synchronized boolean retire(AsyncDispatcher next) {
+            retired = true;
+            if (!isPending()) {
+                return false;
+            }
+            successor = next;
+            if (next != null) {
+                next.hold();
+            }
+            return true;
+        }
+
+        synchronized void hold() {
+            held = true;
+        }
+
+        /*
+         * Starts delivering the changes queued while the previous dispatcher
+         * was draining.
+         */
+        void release() {
+            boolean start;
+            synchronized (this) {
+                held = false;
+                start = !queue.isEmpty();
+                if (start) {
+                    draining = true;
+                } else if (!retired) {
+                    return;
+                }
+            }
+            if (start) {
+                executor.execute(this);
+            } else {
+                handOff();
+            }
+        }
+
+        /*
+         * Passes on to the successor once this retired dispatcher is drained.
+         */
+        private void handOff() {
+            AsyncDispatcher next;
+            synchronized (this) {
+                next = successor;
+            }
+            if (next != null) {
+                next.release();
+            } else {
+                synchronized (PropertyChangeSupport.this) {
+                    if (asyncDispatcher == this) {
+                        asyncDispatcher = null;
+                    }
+                }
+            }
+        }
+
+        /*
+         * Applies the policy to the full queue, answers false if the entry
+         * was merged into a queued one.
+         */
+        private boolean makeRoom(Object entry) {
+            if (policy == BackpressurePolicy.DROP_OLDEST) {
+                queue.removeFirst();
+                return true;
+            }
+            if (policy == BackpressurePolicy.COALESCE && coalesce(entry)) {
+                return false;
+            }
+            // nor while the previous dispatcher drains, whose listeners may
+            // be the firing ones
+            while (queue.size() >= capacity && !held
+                    && Thread.currentThread() != drainThread) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // queue the change anyway, keeping the interruption
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return true;
+        }
+
+        private boolean coalesce(Object entry) {
+            if (!(entry instanceof PropertyChangeEvent)
+                    || entry instanceof IndexedPropertyChangeEvent) {
+                return false;
+            }
+            PropertyChangeEvent event = (PropertyChangeEvent) entry;
+            String propertyName = event.getPropertyName();
+            if (propertyName == null) {
+                return false;
+            }
+            ListIterator<Object> iterator = queue.listIterator(queue.size());
+            while (iterator.hasPrevious()) {
+                Object queued = iterator.previous();
+                if (!(queued instanceof PropertyChangeEvent)
+                        || !propertyName.equals(((PropertyChangeEvent) queued)
+                                .getPropertyName())) {
+                    continue;
+                }
+                if (queued instanceof IndexedPropertyChangeEvent) {
+                    return false;
+                }
+                PropertyChangeEvent merged = merge(
+                        (PropertyChangeEvent) queued, event);
+                if (isUnchanged(merged)) {
+                    iterator.remove();
+                    notifyAll();
+                } else {
+                    iterator.set(merged);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        public void run() {
+            synchronized (this) {
+                drainThread = Thread.currentThread();
+            }
+            boolean completed = false;
+            try {
+                while (true) {
+                    Object entry;
+                    synchronized (this) {
+                        entry = queue.poll();
+                        if (entry == null) {
+                            drainThread = null;
+                            draining = false;
+                            completed = true;
+                        } else {
+                            notifyAll();
+                        }
+                    }
+                    if (entry == null) {
+                        if (isRetired()) {
+                            handOff();
+                        }
+                        return;
+                    }
+                    try {
+                        if (entry instanceof PropertyChangeEvent[]) {
+                            dispatchBatch((PropertyChangeEvent[]) entry);
+                        } else {
+                            deliver((PropertyChangeEvent) entry, null);
+                        }
+                    } catch (RuntimeException e) {
+                        Thread thread = Thread.currentThread();
+                        thread.getUncaughtExceptionHandler().uncaughtException(
+                                thread, e);
+                    }
+                }
+            } finally {
+                if (!completed) {
+                    // an error escaped, the next change submits a new task
+                    synchronized (this) {
+                        drainThread = null;
+                        draining = false;
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Creates the change from the old value of the first event to the
+     * new value of the second one, keeping primitive events primitive and
+     * the source and the propagation id of the first event.
+     */
+    private static PropertyChangeEvent merge(PropertyChangeEvent first,
+            PropertyChangeEvent last) {
+        PropertyChangeEvent merged = mergeValues(first, last);
+        merged.setPropagationId(first.getPropagationId());
+        return merged;
+    }
+
+    private static PropertyChangeEvent mergeValues(PropertyChangeEvent first,
+            PropertyChangeEvent last) {
+        Object source = first.getSource();
+        String propertyName = first.getPropertyName();
+        if (first instanceof IntPropertyChangeEvent
+                && last instanceof IntPropertyChangeEvent) {
+            return new IntPropertyChangeEvent(source, propertyName,
+                    ((IntPropertyChangeEvent) first).getIntOldValue(),
+                    ((IntPropertyChangeEvent) last).getIntNewValue());
+        }
+        if (first instanceof LongPropertyChangeEvent
+                && last instanceof LongPropertyChangeEvent) {
+            return new LongPropertyChangeEvent(source, propertyName,
+                    ((LongPropertyChangeEvent) first).getLongOldValue(),
+                    ((LongPropertyChangeEvent) last).getLongNewValue());
+        }
+        if (first instanceof DoublePropertyChangeEvent
+                && last instanceof DoublePropertyChangeEvent) {
+            return new DoublePropertyChangeEvent(source, propertyName,
+                    ((DoublePropertyChangeEvent) first)
+                            .getDoubleOldValue(),
+                    ((DoublePropertyChangeEvent) last)
+                            .getDoubleNewValue());
+        }
+        if (first instanceof FloatPropertyChangeEvent
+                && last instanceof FloatPropertyChangeEvent) {
+            return new FloatPropertyChangeEvent(source, propertyName,
+                    ((FloatPropertyChangeEvent) first).getFloatOldValue(),
+                    ((FloatPropertyChangeEvent) last).getFloatNewValue());
+        }
+        if (first instanceof CharPropertyChangeEvent
+                && last instanceof CharPropertyChangeEvent) {
+            return new CharPropertyChangeEvent(source, propertyName,
+                    ((CharPropertyChangeEvent) first).getCharOldValue(),
+                    ((CharPropertyChangeEvent) last).getCharNewValue());
+        }
+        if (first instanceof ShortPropertyChangeEvent
+                && last instanceof ShortPropertyChangeEvent) {
+            return new ShortPropertyChangeEvent(source, propertyName,
+                    ((ShortPropertyChangeEvent) first).getShortOldValue(),
+                    ((ShortPropertyChangeEvent) last).getShortNewValue());
+        }
+        return new PropertyChangeEvent(source, propertyName, first
+                .getOldValue(), last.getNewValue());
+    }
+
+    private static boolean isUnchanged(PropertyChangeEvent event) {
+        if (event instanceof IntPropertyChangeEvent) {
+            IntPropertyChangeEvent e = (IntPropertyChangeEvent) event;
+            return e.getIntOldValue() == e.getIntNewValue();
+        }
+        if (event instanceof LongPropertyChangeEvent) {
+            LongPropertyChangeEvent e = (LongPropertyChangeEvent) event;
+            return e.getLongOldValue() == e.getLongNewValue();
+        }
+        if (event instanceof DoublePropertyChangeEvent) {
+            DoublePropertyChangeEvent e = (DoublePropertyChangeEvent) event;
+            return Double.doubleToLongBits(e.getDoubleOldValue()) == Double
+                    .doubleToLongBits(e.getDoubleNewValue());
+        }
+        if (event instanceof FloatPropertyChangeEvent) {
+            FloatPropertyChangeEvent e = (FloatPropertyChangeEvent) event;
+            return Float.floatToIntBits(e.getFloatOldValue()) == Float
+                    .floatToIntBits(e.getFloatNewValue());
+        }
+        if (event instanceof CharPropertyChangeEvent) {
+            CharPropertyChangeEvent e = (CharPropertyChangeEvent) event;
+            return e.getCharOldValue() == e.getCharNewValue();
+        }
+        if (event instanceof ShortPropertyChangeEvent) {
+            ShortPropertyChangeEvent e = (ShortPropertyChangeEvent) event;
+            return e.getShortOldValue() == e.getShortNewValue();
+        }
+        Object oldValue = event.getOldValue();
+        Object newValue = event.getNewValue();
+        return oldValue != null && newValue != null
+                && oldValue.equals(newValue);
+    }
 }
@@ -35,6 +35,9 @@ public class PropertyDescriptor extends FeatureDescriptor
 
     boolean bound;
 
+    // created on first use, dropped when the accessor methods change
+    private volatile PropertyAccessor accessor;
+
     public PropertyDescriptor(String propertyName, Class<?> beanClass,
             String getterName, String setterName) throws kava.beans.IntrospectionException
 	{
@@ -100,6 +103,23 @@ public class PropertyDescriptor extends FeatureDescriptor
         setWriteMethod(beanClass, createDefaultMethodName(propertyName, "set")); //$NON-NLS-1$
     }
 
+    PropertyDescriptor(PropertyDescriptor descriptor) {
+        super(descriptor);
+        this.getter = descriptor.getter;
+        this.setter = descriptor.setter;
+        this.propertyEditorClass = descriptor.propertyEditorClass;
+        this.constrained = descriptor.constrained;
+        this.bound = descriptor.bound;
+    }
+
+    /*
+     * Returns a copy of this descriptor, overridden to keep the indexed
+     * accessors of an IndexedPropertyDescriptor.
+     */
+    PropertyDescriptor copy() {
+        return new PropertyDescriptor(this);
+    }
+
     public void setWriteMethod(Method setter) throws kava.beans.IntrospectionException
 	{
         if (setter != null) {
@@ -118,6 +138,7 @@ public class PropertyDescriptor extends FeatureDescriptor
             }
         }
         this.setter = setter;
+        resetAccessor();
     }
 
     public void setReadMethod(Method getter) throws kava.beans.IntrospectionException
@@ -141,12 +162,37 @@ public class PropertyDescriptor extends FeatureDescriptor
             }
         }
         this.getter = getter;
+        resetAccessor();
     }
 
     public Method getWriteMethod() {
         return setter;
     }
 
+    /**
+     * Gets an accessor which reads and writes this property through method
+     * handles. The accessor is cached until the read or write method of this
+     * descriptor is changed.
+     * 
+     * @return the accessor of this property.
+     */
+    public PropertyAccessor getAccessor() {
+        PropertyAccessor result = accessor;
+        if (result == null) {
+            result = createAccessor();
+            accessor = result;
+        }
+        return result;
+    }
+
+    PropertyAccessor createAccessor() {
+        return new PropertyAccessor(getter, setter);
+    }
+
+    void resetAccessor() {
+        accessor = null;
+    }
+
     public Method getReadMethod() {
         return getter;
     }
@@ -0,0 +1,106 @@
+/* 
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package kava.beans;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.EventListener;
+
+/**
+ * A listener registered by a weak or soft reference in a
+ * {@link PropertyChangeSupport} or {@link VetoableChangeSupport}. Events are
+ * forwarded to the referenced listener while it is reachable; once it is
+ * collected the reference is enqueued, telling the support to remove this
+ * wrapper.
+ */
+final class ReferenceListener implements BatchPropertyChangeListener,
+        VetoableChangeListener {
+
+    private final Reference<EventListener> reference;
+
+    ReferenceListener(EventListener listener, boolean soft,
+            ReferenceQueue<Object> queue) {
+        if (soft) {
+            reference = new SoftReference<EventListener>(listener, queue);
+        } else {
+            reference = new WeakReference<EventListener>(listener, queue);
+        }
+    }
+
+    /**
+     * Answers the referenced listener, null if it was collected.
+     */
+    EventListener get() {
+        return reference.get();
+    }
+
+    public void propertyChange(PropertyChangeEvent event) {
+        PropertyChangeListener listener = (PropertyChangeListener) reference
+                .get();
+        if (listener != null) {
+            listener.propertyChange(event);
+        }
+    }
+
+    public void propertiesChanged(PropertyChangeEvent[] events) {
+        PropertyChangeListener listener = (PropertyChangeListener) reference
+                .get();
+        if (listener instanceof BatchPropertyChangeListener) {
+            ((BatchPropertyChangeListener) listener).propertiesChanged(events);
+        } else if (listener != null) {
+            for (int i = 0; i < events.length; i++) {
+                listener.propertyChange(events[i]);
+            }
+        }
+    }
+
+    public void vetoableChange(PropertyChangeEvent event)
+            throws PropertyVetoException {
+        VetoableChangeListener listener = (VetoableChangeListener) reference
+                .get();
+        if (listener != null) {
+            listener.vetoableChange(event);
+        }
+    }
+
+    /*
+     * Answers whether the listener is the given one or a wrapper of it.
+     */
+    static boolean matches(EventListener registered, EventListener listener) {
+        if (listener.equals(registered)) {
+            return true;
+        }
+        if (registered instanceof ReferenceListener) {
+            EventListener referent = ((ReferenceListener) registered).get();
+            return referent != null && listener.equals(referent);
+        }
+        return false;
+    }
+
+    /*
+     * Answers the listener as registered by the user, null if it was
+     * collected.
+     */
+    static EventListener unwrap(EventListener listener) {
+        if (listener instanceof ReferenceListener) {
+            return ((ReferenceListener) listener).get();
+        }
+        return listener;
+    }
+}
@@ -91,6 +91,23 @@ class StandardBeanInfo extends SimpleBeanInfo
 
     private boolean canRemovePropertyChangeListener;
 
+    /* The index of the bean class, null if there is none */
+    private BeanInfoIndex index;
+
+    /*
+     * Methods and events are only introspected and merged when they are first
+     * asked for. Until then the merges are kept here in order, the list is
+     * dropped once both have been resolved.
+     */
+    private ArrayList<PendingMerge> pendingMerges = new ArrayList<PendingMerge>();
+
+    private volatile boolean methodsResolved;
+
+    private volatile boolean eventsResolved;
+
+    // The property descriptors by name, built on first lookup
+    private volatile HashMap<String, kava.beans.PropertyDescriptor> propertyIndex;
+
     StandardBeanInfo(Class<?> beanClass, kava.beans.BeanInfo explicitBeanInfo, Class<?> stopClass)
             throws kava.beans.IntrospectionException
 	{
@@ -136,17 +153,13 @@ class StandardBeanInfo extends SimpleBeanInfo
                 explicitProperties = true;
         }
 
-        if (methods == null) {
-            methods = introspectMethods();
+        if (properties == null || events == null) {
+            index = BeanInfoIndex.load(beanClass);
         }
 
         if (properties == null) {
             properties = introspectProperties(stopClass);
         }
-
-        if (events == null) {
-            events = introspectEvents();
-        }
     }
 
     @Override
@@ -156,11 +169,13 @@ class StandardBeanInfo extends SimpleBeanInfo
 
     @Override
     public kava.beans.EventSetDescriptor[] getEventSetDescriptors() {
+        resolveEvents();
         return events;
     }
 
     @Override
     public kava.beans.MethodDescriptor[] getMethodDescriptors() {
+        resolveMethods();
         return methods;
     }
 
@@ -182,6 +197,7 @@ class StandardBeanInfo extends SimpleBeanInfo
 
     @Override
     public int getDefaultEventIndex() {
+        resolveEvents();
         return this.defaultEventIndex;
     }
 
@@ -190,45 +206,177 @@ class StandardBeanInfo extends SimpleBeanInfo
         return this.defaultPropertyIndex;
     }
 
+    /**
+     * Gets the descriptor of the property with the given name.
+     * 
+     * @return the property descriptor, or null if there is no such property
+     */
+    kava.beans.PropertyDescriptor getPropertyDescriptor(String name) {
+        HashMap<String, kava.beans.PropertyDescriptor> map = propertyIndex;
+        if (map == null) {
+            map = internalAsMap(getPropertyDescriptors());
+            propertyIndex = map;
+        }
+        return map.get(name);
+    }
+
+    /**
+     * Gets the descriptor of the property with the given name from any
+     * BeanInfo, by name lookup if it was created by the Introspector.
+     * 
+     * @return the property descriptor, or null if there is no such property
+     */
+    static kava.beans.PropertyDescriptor findPropertyDescriptor(
+            kava.beans.BeanInfo beanInfo, String name) {
+        if (beanInfo instanceof StandardBeanInfo) {
+            return ((StandardBeanInfo) beanInfo).getPropertyDescriptor(name);
+        }
+        kava.beans.PropertyDescriptor[] pds = beanInfo.getPropertyDescriptors();
+        if (pds != null) {
+            for (kava.beans.PropertyDescriptor element : pds) {
+                if (element.getName().equals(name)) {
+                    return element;
+                }
+            }
+        }
+        return null;
+    }
+
     void mergeBeanInfo(BeanInfo beanInfo, boolean force)
             throws kava.beans.IntrospectionException
 	{
         if (force || !explicitProperties) {
-            kava.beans.PropertyDescriptor[] superDescs = beanInfo.getPropertyDescriptors();
+            mergeProperties(beanInfo.getPropertyDescriptors(), beanInfo
+                    .getDefaultPropertyIndex());
+        }
+        pendingMerges.add(new PendingMerge(beanInfo, force, false));
+    }
+
+    /*
+     * Merges the cached BeanInfo of the super class. Merging modifies the
+     * descriptors taken over from the super class, so they are copied, the
+     * methods and events only when they are resolved.
+     */
+    void mergeSuperBeanInfo(StandardBeanInfo beanInfo)
+            throws kava.beans.IntrospectionException
+	{
+        if (!explicitProperties) {
+            kava.beans.PropertyDescriptor[] superDescs = beanInfo.properties;
+            kava.beans.PropertyDescriptor[] copies = null;
             if (superDescs != null) {
-                if (getPropertyDescriptors() != null) {
-                    properties = mergeProps(superDescs, beanInfo
-                            .getDefaultPropertyIndex());
-                } else {
-                    properties = superDescs;
-                    defaultPropertyIndex = beanInfo.getDefaultPropertyIndex();
+                copies = new kava.beans.PropertyDescriptor[superDescs.length];
+                for (int i = 0; i < copies.length; i++) {
+                    copies[i] = superDescs[i].copy();
                 }
             }
+            mergeProperties(copies, beanInfo.defaultPropertyIndex);
         }
+        pendingMerges.add(new PendingMerge(beanInfo, false, true));
+    }
 
-        if (force || !explicitMethods) {
-            kava.beans.MethodDescriptor[] superMethods = beanInfo.getMethodDescriptors();
-            if (superMethods != null) {
+    private void mergeProperties(kava.beans.PropertyDescriptor[] superDescs,
+            int superDefaultIndex) throws kava.beans.IntrospectionException
+	{
+        if (superDescs != null) {
+            if (properties != null) {
+                properties = mergeProps(superDescs, superDefaultIndex);
+            } else {
+                properties = superDescs;
+                defaultPropertyIndex = superDefaultIndex;
+            }
+        }
+    }
+
+    private void resolveMethods() {
+        if (methodsResolved) {
+            return;
+        }
+        synchronized (this) {
+            if (methodsResolved) {
+                return;
+            }
+            if (!explicitMethods) {
+                methods = introspectMethods();
+            }
+            for (PendingMerge merge : pendingMerges) {
+                if (!merge.force && explicitMethods) {
+                    continue;
+                }
+                kava.beans.MethodDescriptor[] superMethods = merge.beanInfo
+                        .getMethodDescriptors();
+                if (superMethods == null) {
+                    continue;
+                }
+                if (merge.copy) {
+                    kava.beans.MethodDescriptor[] copies = new kava.beans.MethodDescriptor[superMethods.length];
+                    for (int i = 0; i < copies.length; i++) {
+                        copies[i] = new kava.beans.MethodDescriptor(
+                                superMethods[i]);
+                    }
+                    superMethods = copies;
+                }
                 if (methods != null) {
                     methods = mergeMethods(superMethods);
                 } else {
                     methods = superMethods;
                 }
             }
+            methodsResolved = true;
+            if (eventsResolved) {
+                pendingMerges = null;
+            }
         }
+    }
 
-        if (force || !explicitEvents) {
-            kava.beans.EventSetDescriptor[] superEvents = beanInfo
-                    .getEventSetDescriptors();
-            if (superEvents != null) {
+    private void resolveEvents() {
+        if (eventsResolved) {
+            return;
+        }
+        synchronized (this) {
+            if (eventsResolved) {
+                return;
+            }
+            if (!explicitEvents) {
+                try {
+                    events = introspectEvents();
+                } catch (kava.beans.IntrospectionException e) {
+                    // the EventSetDescriptor constructor used never throws it
+                    throw new IllegalStateException(e);
+                }
+            }
+            for (PendingMerge merge : pendingMerges) {
+                if (!merge.force && explicitEvents) {
+                    continue;
+                }
+                kava.beans.EventSetDescriptor[] superEvents = merge.beanInfo
+                        .getEventSetDescriptors();
+                if (superEvents == null) {
+                    continue;
+                }
+                if (merge.copy) {
+                    kava.beans.EventSetDescriptor[] copies = new kava.beans.EventSetDescriptor[superEvents.length];
+                    for (int i = 0; i < copies.length; i++) {
+                        copies[i] = new kava.beans.EventSetDescriptor(
+                                superEvents[i]);
+                    }
+                    superEvents = copies;
+                }
                 if (events != null) {
-                    events = mergeEvents(superEvents, beanInfo
+                    events = mergeEvents(superEvents, merge.beanInfo
                             .getDefaultEventIndex());
                 } else {
                     events = superEvents;
-                    defaultEventIndex = beanInfo.getDefaultEventIndex();
+                    defaultEventIndex = merge.beanInfo.getDefaultEventIndex();
                 }
             }
+            if (events == null) {
+                events = new EventSetDescriptor[0];
+            }
+            index = null;
+            eventsResolved = true;
+            if (methodsResolved) {
+                pendingMerges = null;
+            }
         }
     }
 
@@ -611,6 +759,21 @@ class StandardBeanInfo extends SimpleBeanInfo
         return introspectMethods(false, beanClass);
     }
 
+    /**
+     * Returns the public methods of the class which may be property accessors
+     * or listener methods. They are taken from the index of the class when it
+     * has one, otherwise all the public methods are returned.
+     * 
+     * @return An array of MethodDescriptors. null if there are no such
+     *         methods
+     */
+    private kava.beans.MethodDescriptor[] introspectAccessorMethods() {
+        if (index != null) {
+            return index.getMethodDescriptors();
+        }
+        return introspectMethods();
+    }
+
     private kava.beans.MethodDescriptor[] introspectMethods(boolean includeSuper) {
         return introspectMethods(includeSuper, beanClass);
     }
@@ -665,7 +828,7 @@ class StandardBeanInfo extends SimpleBeanInfo
 	{
 
         // Get descriptors for the public methods
-        kava.beans.MethodDescriptor[] methodDescriptors = introspectMethods();
+        kava.beans.MethodDescriptor[] methodDescriptors = introspectAccessorMethods();
 
         if (methodDescriptors == null) {
             return null;
@@ -705,23 +868,11 @@ class StandardBeanInfo extends SimpleBeanInfo
         fixGetSet(propertyTable);
 
         // If there are listener methods, should be bound.
-        kava.beans.MethodDescriptor[] allMethods = introspectMethods(true);
-        if (stopClass != null) {
-            kava.beans.MethodDescriptor[] excludeMethods = introspectMethods(true,
-                    stopClass);
-            if (excludeMethods != null) {
-                ArrayList<kava.beans.MethodDescriptor> tempMethods = new ArrayList<kava.beans.MethodDescriptor>();
-                for (kava.beans.MethodDescriptor method : allMethods) {
-                    if (!isInSuper(method, excludeMethods)) {
-                        tempMethods.add(method);
-                    }
-                }
-                allMethods = tempMethods
-                        .toArray(new kava.beans.MethodDescriptor[0]);
-            }
-        }
-        for (int i = 0; i < allMethods.length; i++) {
-            introspectPropertyListener(allMethods[i].getMethod());
+        if (index != null && stopClass == null) {
+            canAddPropertyChangeListener = index.isBound();
+            canRemovePropertyChangeListener = index.isBound();
+        } else {
+            introspectPropertyListeners(stopClass);
         }
         // Put the properties found into the PropertyDescriptor array
         ArrayList<kava.beans.PropertyDescriptor> propertyList = new ArrayList<kava.beans.PropertyDescriptor>();
@@ -787,6 +938,27 @@ class StandardBeanInfo extends SimpleBeanInfo
         return false;
     }
 
+    private void introspectPropertyListeners(Class<?> stopClass) {
+        kava.beans.MethodDescriptor[] allMethods = introspectMethods(true);
+        if (stopClass != null) {
+            kava.beans.MethodDescriptor[] excludeMethods = introspectMethods(true,
+                    stopClass);
+            if (excludeMethods != null) {
+                ArrayList<kava.beans.MethodDescriptor> tempMethods = new ArrayList<kava.beans.MethodDescriptor>();
+                for (kava.beans.MethodDescriptor method : allMethods) {
+                    if (!isInSuper(method, excludeMethods)) {
+                        tempMethods.add(method);
+                    }
+                }
+                allMethods = tempMethods
+                        .toArray(new kava.beans.MethodDescriptor[0]);
+            }
+        }
+        for (int i = 0; i < allMethods.length; i++) {
+            introspectPropertyListener(allMethods[i].getMethod());
+        }
+    }
+
     @SuppressWarnings("nls")
     private void introspectPropertyListener(Method theMethod) {
         String methodName = theMethod.getName();
@@ -1281,8 +1453,7 @@ class StandardBeanInfo extends SimpleBeanInfo
     private kava.beans.EventSetDescriptor[] introspectEvents() throws IntrospectionException
 	{
         // Get descriptors for the public methods
-        // FIXME: performance
-        MethodDescriptor[] theMethods = introspectMethods();
+        MethodDescriptor[] theMethods = introspectAccessorMethods();
 
         if (theMethods == null)
             return null;
@@ -1470,11 +1641,24 @@ class StandardBeanInfo extends SimpleBeanInfo
 
     }
 
+    private static class PendingMerge {
+
+        final kava.beans.BeanInfo beanInfo;
+
+        final boolean force;
+
+        // whether the descriptors must be copied before they are merged
+        final boolean copy;
+
+        PendingMerge(kava.beans.BeanInfo beanInfo, boolean force, boolean copy) {
+            this.beanInfo = beanInfo;
+            this.force = force;
+            this.copy = copy;
+        }
+    }
+
     // TODO
     void init() {
-        if (this.events == null) {
-            events = new EventSetDescriptor[0];
-        }
         if (this.properties == null) {
             this.properties = new PropertyDescriptor[0];
         }
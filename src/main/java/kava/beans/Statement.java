@@ -17,6 +17,11 @@
 
 package kava.beans;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
@@ -29,7 +34,7 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import kava.beans.internal.Messages;
 
@@ -42,9 +47,46 @@ public class Statement {
 
     private Object[] arguments;
     
-    // cache used methods of specified target class to accelerate method search
-    private static WeakHashMap<Class, Method[]> cache = new WeakHashMap<Class, Method[]>();
+    /*
+     * The methods resolved by findMethod for each target class, or the message
+     * of the NoSuchMethodException if there is none, so that a repeated
+     * statement is resolved by a single lookup.
+     */
+    private static final ClassValue<ConcurrentHashMap<MethodKey, Object>> resolvedMethods = new ClassValue<ConcurrentHashMap<MethodKey, Object>>() {
+        @Override
+        protected ConcurrentHashMap<MethodKey, Object> computeValue(
+                Class<?> type) {
+            return new ConcurrentHashMap<MethodKey, Object>();
+        }
+    };
     
+    /*
+     * The constructors resolved by findConstructor for each class, or the
+     * message of the NoSuchMethodException if there is none.
+     */
+    private static final ClassValue<ConcurrentHashMap<MethodKey, Object>> resolvedConstructors = new ClassValue<ConcurrentHashMap<MethodKey, Object>>() {
+        @Override
+        protected ConcurrentHashMap<MethodKey, Object> computeValue(
+                Class<?> type) {
+            return new ConcurrentHashMap<MethodKey, Object>();
+        }
+    };
+
+    // The argument classes of the cached keys which were collected
+    private static final ReferenceQueue<Object> collectedTypes = new ReferenceQueue<Object>();
+
+    /*
+     * The invokers compiled for each target class, or for each class whose
+     * static methods or constructors are called.
+     */
+    private static final ClassValue<ConcurrentHashMap<MethodKey, Invoker>> compiledInvokers = new ClassValue<ConcurrentHashMap<MethodKey, Invoker>>() {
+        @Override
+        protected ConcurrentHashMap<MethodKey, Invoker> computeValue(
+                Class<?> type) {
+            return new ConcurrentHashMap<MethodKey, Invoker>();
+        }
+    };
+
     // the special method name donating constructors
     static final String CONSTRUCTOR_NAME = "new"; //$NON-NLS-1$
 
@@ -112,6 +154,143 @@ public class Statement {
         invokeMethod();
     }
 
+    /**
+     * Compiles the shape of this statement, that is the class of its target
+     * or the target itself if it is a class, its method name and the classes
+     * of its arguments, into an invoker which executes statements of the
+     * same shape through a method handle. The method is resolved once, so
+     * that executing many statements of the same shape costs about as much
+     * as calling the method directly. The invokers are cached, compiling the
+     * same shape again answers the same invoker.
+     * <p>
+     * Shapes which cannot be compiled, as well as statements of another
+     * shape passed to the invoker, are executed like {@link #execute()}, so
+     * the invoker always behaves like the statement it is given.
+     * </p>
+     * 
+     * @return the invoker of the shape of this statement.
+     */
+    public Invoker compile() {
+        Object theTarget = getTarget();
+        String theMethodName = getMethodName();
+        Object[] theArguments = getArguments();
+        if (theTarget == null || theMethodName == null) {
+            return new Invoker(theMethodName, null, null, false, null);
+        }
+        boolean classShape = theTarget instanceof Class;
+        Class<?> shapeClass = classShape ? (Class<?>) theTarget : theTarget
+                .getClass();
+        MethodKey.expungeCollectedKeys();
+        ConcurrentHashMap<MethodKey, Invoker> invokers = compiledInvokers
+                .get(shapeClass);
+        MethodKey key = new MethodKey(theMethodName, getClasses(theArguments),
+                classShape);
+        Invoker invoker = invokers.get(key);
+        if (invoker == null) {
+            MethodKey weakKey = key.toWeakKey(invokers);
+            invoker = new Invoker(theMethodName, shapeClass, weakKey,
+                    classShape, compileHandle(theTarget, theMethodName,
+                            theArguments));
+            Invoker existing = invokers.putIfAbsent(weakKey, invoker);
+            if (existing != null) {
+                invoker = existing;
+            }
+        }
+        return invoker;
+    }
+
+    /*
+     * Makes the decisions of invokeMethod for the shape of the statement,
+     * answers a handle of type (Object, Object[])Object or null if the shape
+     * has to be executed by invokeMethod.
+     */
+    private MethodHandle compileHandle(Object theTarget, String theMethodName,
+            Object[] theArguments) {
+        try {
+            MethodHandle handle;
+            int arity = theArguments.length;
+            if (theTarget.getClass().isArray()) {
+                checkArrayMethod(theMethodName, theArguments);
+                if (theMethodName.equals("get")) { //$NON-NLS-1$
+                    handle = MethodHandles.lookup().findStatic(
+                            Statement.class, "getElement", MethodType //$NON-NLS-1$
+                                    .methodType(Object.class, Object.class,
+                                            int.class));
+                } else if (arity == 2) {
+                    handle = MethodHandles.lookup().findStatic(
+                            Statement.class, "setElement", MethodType //$NON-NLS-1$
+                                    .methodType(void.class, Object.class,
+                                            int.class, Object.class));
+                } else {
+                    handle = MethodHandles.lookup().findStatic(
+                            Statement.class, "setElements", MethodType //$NON-NLS-1$
+                                    .methodType(void.class, Object.class,
+                                            int.class, Object[].class))
+                            .asCollector(Object[].class, arity - 1);
+                }
+                arity++;
+            } else if (theMethodName.equals("newInstance") //$NON-NLS-1$
+                    && theTarget == Array.class) {
+                handle = MethodHandles.publicLookup().findStatic(Array.class,
+                        "newInstance", MethodType.methodType(Object.class, //$NON-NLS-1$
+                                Class.class, int.class));
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+                arity++;
+            } else if (theMethodName.equals("new") //$NON-NLS-1$
+                    || theMethodName.equals("newInstance")) { //$NON-NLS-1$
+                if (theTarget instanceof Class) {
+                    handle = findConstructor((Class<?>) theTarget,
+                            theArguments).handle;
+                    // already spread
+                    return (handle == null) ? null : MethodHandles
+                            .dropArguments(handle, 0, Object.class);
+                } else if ("new".equals(theMethodName)) { //$NON-NLS-1$
+                    return null;
+                } else {
+                    handle = PropertyAccessor.toHandle(findMethod(theTarget
+                            .getClass(), theMethodName, theArguments, false));
+                }
+                arity++;
+            } else if (theMethodName.equals("newArray")) {//$NON-NLS-1$
+                return null;
+            } else if (theTarget instanceof Class) {
+                Method method = null;
+                if (theTarget != Class.class) {
+                    try {
+                        method = findMethod((Class<?>) theTarget,
+                                theMethodName, theArguments, true);
+                    } catch (NoSuchMethodException e) {
+                        // expected
+                    }
+                }
+                if (method == null) {
+                    if (theMethodName.equals("forName")) { //$NON-NLS-1$
+                        return null;
+                    }
+                    method = findMethod(theTarget.getClass(), theMethodName,
+                            theArguments, false);
+                }
+                handle = PropertyAccessor.toHandle(method);
+                arity++;
+            } else if (theTarget instanceof Iterator) {
+                return null;
+            } else {
+                Method method = findMethod(theTarget.getClass(),
+                        theMethodName, theArguments, false);
+                method.setAccessible(true);
+                handle = PropertyAccessor.toHandle(method);
+                arity++;
+            }
+            return handle.asType(MethodType.genericMethodType(arity))
+                    .asSpreader(Object[].class, arity - 1);
+        } catch (Exception e) {
+            // invokeMethod reports the problem when the shape is executed
+            return null;
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
     Object invokeMethod() throws Exception {
         Object result = null;
         try {
@@ -119,11 +298,17 @@ public class Statement {
             String theMethodName = getMethodName();
             Object[] theArguments = getArguments();
             if (theTarget.getClass().isArray()) {
-                Method method = findArrayMethod(theMethodName, theArguments);
-                Object[] args = new Object[theArguments.length + 1];
-                args[0] = theTarget;
-                System.arraycopy(theArguments, 0, args, 1, theArguments.length);
-                result = method.invoke(null, args);
+                checkArrayMethod(theMethodName, theArguments);
+                int index = ((Integer) theArguments[0]).intValue();
+                if (theMethodName.equals("get")) { //$NON-NLS-1$
+                    result = getElement(theTarget, index);
+                } else if (theArguments.length == 2) {
+                    setElement(theTarget, index, theArguments[1]);
+                } else {
+                    Object[] values = new Object[theArguments.length - 1];
+                    System.arraycopy(theArguments, 1, values, 0, values.length);
+                    setElements(theTarget, index, values);
+                }
             } else if (theMethodName.equals("newInstance") //$NON-NLS-1$
                     && theTarget == Array.class) {
                 Class<?> componentType = (Class) theArguments[0];
@@ -132,8 +317,7 @@ public class Statement {
             } else if (theMethodName.equals("new") //$NON-NLS-1$
                     || theMethodName.equals("newInstance")) { //$NON-NLS-1$
                 if (theTarget instanceof Class) {
-                    Constructor<?> constructor = findConstructor((Class)theTarget, theArguments);
-                    result = constructor.newInstance(theArguments);
+                    result = newInstance((Class<?>) theTarget, theArguments);
                 } else {
                     if ("new".equals(theMethodName)) { //$NON-NLS-1$
                         throw new NoSuchMethodException(this.toString());
@@ -281,27 +465,201 @@ public class Statement {
         }
     }
 
-    private Method findArrayMethod(String theMethodName, Object[] theArguments) throws NoSuchMethodException {
-        // the code below reproduces exact RI exception throwing behavior
+    private static void checkArrayMethod(String theMethodName, Object[] theArguments) throws NoSuchMethodException {
+        // the code below reproduces exact RI exception throwing behavior,
+        // except that "set" accepts several values for consecutive elements
         if (!theMethodName.equals("set") && !theMethodName.equals("get")) { //$NON-NLS-1$ //$NON-NLS-2$
             throw new NoSuchMethodException(Messages.getString("beans.3C")); //$NON-NLS-1$
         } else if (theArguments.length > 0 && theArguments[0].getClass() != Integer.class) {
             throw new ClassCastException(Messages.getString("beans.3D")); //$NON-NLS-1$
         } else if (theMethodName.equals("get") && (theArguments.length != 1)) { //$NON-NLS-1$
             throw new ArrayIndexOutOfBoundsException(Messages.getString("beans.3E")); //$NON-NLS-1$
-        } else if (theMethodName.equals("set") && (theArguments.length != 2)) { //$NON-NLS-1$
+        } else if (theMethodName.equals("set") && (theArguments.length < 2)) { //$NON-NLS-1$
             throw new ArrayIndexOutOfBoundsException(Messages.getString("beans.3F")); //$NON-NLS-1$
         }
-        if (theMethodName.equals("get")) { //$NON-NLS-1$
-            return Array.class.getMethod("get", new Class[] { Object.class, //$NON-NLS-1$
-                    int.class });
+    }
+
+    /*
+     * Reads an element like Array.get, but without reflection for the
+     * primitive arrays.
+     */
+    static Object getElement(Object array, int index) {
+        if (array instanceof Object[]) {
+            return ((Object[]) array)[index];
+        } else if (array instanceof int[]) {
+            return Integer.valueOf(((int[]) array)[index]);
+        } else if (array instanceof long[]) {
+            return Long.valueOf(((long[]) array)[index]);
+        } else if (array instanceof double[]) {
+            return Double.valueOf(((double[]) array)[index]);
+        } else if (array instanceof float[]) {
+            return Float.valueOf(((float[]) array)[index]);
+        } else if (array instanceof byte[]) {
+            return Byte.valueOf(((byte[]) array)[index]);
+        } else if (array instanceof short[]) {
+            return Short.valueOf(((short[]) array)[index]);
+        } else if (array instanceof char[]) {
+            return Character.valueOf(((char[]) array)[index]);
+        } else if (array instanceof boolean[]) {
+            return Boolean.valueOf(((boolean[]) array)[index]);
+        }
+        return Array.get(array, index);
+    }
+
+    /*
+     * Writes an element like Array.set, but without reflection if the value
+     * is the wrapper of the primitive component type.
+     */
+    static void setElement(Object array, int index, Object value) {
+        if (array instanceof int[] && value instanceof Integer) {
+            ((int[]) array)[index] = ((Integer) value).intValue();
+        } else if (array instanceof long[] && value instanceof Long) {
+            ((long[]) array)[index] = ((Long) value).longValue();
+        } else if (array instanceof double[] && value instanceof Double) {
+            ((double[]) array)[index] = ((Double) value).doubleValue();
+        } else if (array instanceof float[] && value instanceof Float) {
+            ((float[]) array)[index] = ((Float) value).floatValue();
+        } else if (array instanceof byte[] && value instanceof Byte) {
+            ((byte[]) array)[index] = ((Byte) value).byteValue();
+        } else if (array instanceof short[] && value instanceof Short) {
+            ((short[]) array)[index] = ((Short) value).shortValue();
+        } else if (array instanceof char[] && value instanceof Character) {
+            ((char[]) array)[index] = ((Character) value).charValue();
+        } else if (array instanceof boolean[] && value instanceof Boolean) {
+            ((boolean[]) array)[index] = ((Boolean) value).booleanValue();
+        } else {
+            // reference arrays, widening conversions and illegal values
+            Array.set(array, index, value);
+        }
+    }
+
+    /*
+     * Writes the values to the consecutive elements from the index, as done
+     * by a "set" statement with more than one value. Nothing is written if
+     * the range does not fit in the array or a value does not fit in an
+     * element.
+     */
+    static void setElements(Object array, int index, Object[] values) {
+        int length = Array.getLength(array);
+        if (index < 0 || index > length - values.length) {
+            throw new ArrayIndexOutOfBoundsException(index + values.length - 1);
+        }
+        // all the values are checked before the first one is written
+        Class<?> componentType = array.getClass().getComponentType();
+        for (int i = 0; i < values.length; i++) {
+            if (!isElementValue(componentType, values[i])) {
+                throw new IllegalArgumentException(
+                        "argument type mismatch"); //$NON-NLS-1$
+            }
+        }
+        for (int i = 0; i < values.length; i++) {
+            setElement(array, index + i, values[i]);
+        }
+    }
+
+    /*
+     * Answers whether Array.set accepts the value for an element of the
+     * component type, unwrapping and widening it for the primitive types.
+     */
+    private static boolean isElementValue(Class<?> componentType, Object value) {
+        if (!componentType.isPrimitive()) {
+            return value == null || componentType.isInstance(value);
+        }
+        if (componentType == boolean.class) {
+            return value instanceof Boolean;
+        }
+        if (componentType == char.class) {
+            return value instanceof Character;
         }
-        return Array.class.getMethod("set", new Class[] { Object.class, //$NON-NLS-1$
-                int.class, Object.class });
+        int rank = value instanceof Character ? getWideningRank(int.class)
+                : getWideningRank(getPrimitiveType(value));
+        return rank > 0 && rank <= getWideningRank(componentType);
     }
 
-    private Constructor<?> findConstructor(Class<?> targetClass, Object[] theArguments) throws NoSuchMethodException {
+    /*
+     * Answers the position of the numeric type in the order of the widening
+     * primitive conversions, 0 if it is not one of them.
+     */
+    private static int getWideningRank(Class<?> type) {
+        if (type == byte.class) {
+            return 1;
+        } else if (type == short.class) {
+            return 2;
+        } else if (type == int.class) {
+            return 3;
+        } else if (type == long.class) {
+            return 4;
+        } else if (type == float.class) {
+            return 5;
+        } else if (type == double.class) {
+            return 6;
+        }
+        return 0;
+    }
+
+    private static Class<?> getPrimitiveType(Object value) {
+        if (value instanceof Integer) {
+            return int.class;
+        } else if (value instanceof Long) {
+            return long.class;
+        } else if (value instanceof Double) {
+            return double.class;
+        } else if (value instanceof Float) {
+            return float.class;
+        } else if (value instanceof Byte) {
+            return byte.class;
+        } else if (value instanceof Short) {
+            return short.class;
+        }
+        return null;
+    }
+
+    private static Object newInstance(Class<?> targetClass,
+            Object[] theArguments) throws Exception {
+        ResolvedConstructor constructor = findConstructor(targetClass,
+                theArguments);
+        if (constructor.handle == null) {
+            return constructor.constructor.newInstance(theArguments);
+        }
+        try {
+            return constructor.handle.invokeExact(theArguments);
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable t) {
+            // as thrown by Constructor.newInstance
+            throw new InvocationTargetException(t);
+        }
+    }
+
+    /*
+     * Searches for the first public constructor accepting the arguments. The
+     * results are cached for the classes of the arguments.
+     */
+    private static ResolvedConstructor findConstructor(Class<?> targetClass,
+            Object[] theArguments) throws NoSuchMethodException {
         Class<?>[] argClasses = getClasses(theArguments);
+        MethodKey.expungeCollectedKeys();
+        ConcurrentHashMap<MethodKey, Object> resolved = resolvedConstructors
+                .get(targetClass);
+        MethodKey key = new MethodKey(CONSTRUCTOR_NAME, argClasses, false);
+        Object constructor = resolved.get(key);
+        if (constructor == null) {
+            try {
+                constructor = new ResolvedConstructor(resolveConstructor(
+                        targetClass, argClasses));
+            } catch (NoSuchMethodException e) {
+                constructor = e.getMessage();
+            }
+            resolved.put(key.toWeakKey(resolved), constructor);
+        }
+        if (constructor instanceof String) {
+            throw new NoSuchMethodException((String) constructor);
+        }
+        return (ResolvedConstructor) constructor;
+    }
+
+    private static Constructor<?> resolveConstructor(Class<?> targetClass,
+            Class<?>[] argClasses) throws NoSuchMethodException {
         Constructor<?> result = null;
         Constructor<?>[] constructors = targetClass.getConstructors();
         for (Constructor<?> constructor : constructors) {
@@ -340,15 +698,30 @@ public class Statement {
     static Method findMethod(Class<?> targetClass, String methodName, Object[] arguments,
             boolean methodIsStatic) throws NoSuchMethodException {
         Class<?>[] argClasses = getClasses(arguments);
-        Method[] methods = null;
-        
-        if(cache.containsKey(targetClass)){
-            methods = cache.get(targetClass);
-        }else{
-            methods = targetClass.getMethods();
-            cache.put(targetClass, methods);
-        }
-        
+        MethodKey.expungeCollectedKeys();
+        ConcurrentHashMap<MethodKey, Object> resolved = resolvedMethods
+                .get(targetClass);
+        MethodKey key = new MethodKey(methodName, argClasses, methodIsStatic);
+        Object method = resolved.get(key);
+        if (method == null) {
+            try {
+                method = resolveMethod(targetClass, methodName, argClasses
+                        .clone(), methodIsStatic);
+            } catch (NoSuchMethodException e) {
+                method = e.getMessage();
+            }
+            resolved.put(key.toWeakKey(resolved), method);
+        }
+        if (method instanceof String) {
+            throw new NoSuchMethodException((String) method);
+        }
+        return (Method) method;
+    }
+
+    private static Method resolveMethod(Class<?> targetClass,
+            String methodName, Class<?>[] argClasses, boolean methodIsStatic)
+            throws NoSuchMethodException {
+        Method[] methods = targetClass.getMethods();
         ArrayList<Method> foundMethods = new ArrayList<Method>();
         Method[] foundMethodsArr;
         for (Method method : methods) {
@@ -533,6 +906,261 @@ public class Statement {
         return result;
     }
 
+    /*
+     * A constructor with a handle of type (Object[])Object creating its
+     * instances, the handle is null if the constructor is not publicly
+     * accessible.
+     */
+    private static final class ResolvedConstructor {
+
+        final Constructor<?> constructor;
+
+        final MethodHandle handle;
+
+        ResolvedConstructor(Constructor<?> constructor) {
+            this.constructor = constructor;
+            MethodHandle newInstance = null;
+            if (!Modifier.isAbstract(constructor.getDeclaringClass()
+                    .getModifiers())) {
+                try {
+                    int arity = constructor.getParameterTypes().length;
+                    newInstance = MethodHandles.publicLookup()
+                            .unreflectConstructor(constructor).asType(
+                                    MethodType.genericMethodType(arity))
+                            .asSpreader(Object[].class, arity);
+                } catch (IllegalAccessException e) {
+                    // created by reflection
+                }
+            }
+            this.handle = newInstance;
+        }
+    }
+
+    /**
+     * Executes statements of one shape, see {@link Statement#compile()}.
+     */
+    public static final class Invoker {
+
+        private final String methodName;
+
+        // the class of the targets, or the target itself for a class shape
+        private final Class<?> shapeClass;
+
+        private final MethodKey key;
+
+        private final boolean classShape;
+
+        // (Object, Object[])Object, null if the shape is not compiled
+        private final MethodHandle handle;
+
+        Invoker(String methodName, Class<?> shapeClass, MethodKey key,
+                boolean classShape, MethodHandle handle) {
+            this.methodName = methodName;
+            this.shapeClass = shapeClass;
+            this.key = key;
+            this.classShape = classShape;
+            this.handle = handle;
+        }
+
+        /**
+         * Answers whether the shape was compiled into a method handle,
+         * otherwise the statements are executed like
+         * {@link Statement#execute()}.
+         * 
+         * @return true if the shape is executed through a method handle.
+         */
+        public boolean isCompiled() {
+            return handle != null;
+        }
+
+        /**
+         * Executes the statement of the given target and arguments with the
+         * method name of this invoker.
+         * 
+         * @param target
+         *            the target of the statement.
+         * @param arguments
+         *            the arguments of the statement.
+         * @return the value of the statement, null for a void method.
+         * @throws Exception
+         *             the exception thrown by the statement.
+         */
+        public Object invoke(Object target, Object... arguments)
+                throws Exception {
+            if (arguments == null) {
+                arguments = EMPTY_ARRAY;
+            }
+            if (handle == null || !matches(target, arguments)) {
+                return new Statement(target, methodName, arguments)
+                        .invokeMethod();
+            }
+            try {
+                return handle.invokeExact(target, arguments);
+            } catch (InvocationTargetException ite) {
+                // thrown when a method is called by reflection
+                Throwable t = ite.getCause();
+                throw (t != null) && (t instanceof Exception) ? (Exception) t : ite;
+            } catch (Exception e) {
+                throw e;
+            } catch (Throwable t) {
+                // as reported by Method.invoke, see invokeMethod
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        private boolean matches(Object target, Object[] arguments) {
+            if (classShape ? target != shapeClass : target == null
+                    || target.getClass() != shapeClass) {
+                return false;
+            }
+            return key.matches(arguments);
+        }
+    }
+
+    /*
+     * The key of a resolved method. The argument classes of the keys kept in
+     * the cache are weakly referenced, so that the cache of a class does not
+     * prevent the unloading of the classes of the arguments passed to it.
+     * Once such a class is collected, its keys are removed from their cache.
+     */
+    private static final class MethodKey {
+
+        private final String name;
+
+        // the argument classes, or weak references to them
+        private final Object[] types;
+
+        private final boolean isStatic;
+
+        private final int hash;
+
+        MethodKey(String name, Class<?>[] argClasses, boolean isStatic) {
+            this(name, (Object[]) argClasses, isStatic);
+        }
+
+        private MethodKey(String name, Object[] types, boolean isStatic) {
+            this.name = name;
+            this.types = types;
+            this.isStatic = isStatic;
+            int h = name.hashCode() * 31 + (isStatic ? 1 : 0);
+            for (int i = 0; i < types.length; i++) {
+                h = h * 31 + System.identityHashCode(getType(i));
+            }
+            this.hash = h;
+        }
+
+        /*
+         * Answers a copy of this key to be kept in the given cache, which it
+         * is removed from when an argument class is collected.
+         */
+        MethodKey toWeakKey(ConcurrentHashMap<MethodKey, ?> cache) {
+            Object[] weakTypes = new Object[types.length];
+            MethodKey weakKey = new MethodKey(name, weakTypes, isStatic, hash);
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] != null) {
+                    weakTypes[i] = new TypeReference(types[i], cache, weakKey);
+                }
+            }
+            return weakKey;
+        }
+
+        /*
+         * Removes the keys of the collected argument classes from their
+         * caches, without locking if there are none.
+         */
+        static void expungeCollectedKeys() {
+            Object reference;
+            while ((reference = collectedTypes.poll()) != null) {
+                ((TypeReference) reference).expunge();
+            }
+        }
+
+        private MethodKey(String name, Object[] types, boolean isStatic,
+                int hash) {
+            this.name = name;
+            this.types = types;
+            this.isStatic = isStatic;
+            this.hash = hash;
+        }
+
+        /*
+         * Answers whether the arguments have the classes of this key.
+         */
+        boolean matches(Object[] arguments) {
+            if (arguments.length != types.length) {
+                return false;
+            }
+            for (int i = 0; i < types.length; i++) {
+                Object type = getType(i);
+                if (arguments[i] == null ? types[i] != null
+                        : type != arguments[i].getClass()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Object getType(int i) {
+            Object type = types[i];
+            if (type instanceof WeakReference) {
+                return ((WeakReference<?>) type).get();
+            }
+            return type;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MethodKey)) {
+                return false;
+            }
+            MethodKey other = (MethodKey) obj;
+            if (hash != other.hash || isStatic != other.isStatic
+                    || types.length != other.types.length
+                    || !name.equals(other.name)) {
+                return false;
+            }
+            for (int i = 0; i < types.length; i++) {
+                Object type = getType(i);
+                // a collected class matches no argument, not even null
+                if (type != other.getType(i) || type == null
+                        && (types[i] != null || other.types[i] != null)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /*
+     * A weak reference to an argument class of a cached key, enqueued with
+     * the cache and the key to remove once the class is collected.
+     */
+    private static final class TypeReference extends WeakReference<Object> {
+
+        private final ConcurrentHashMap<MethodKey, ?> cache;
+
+        private final MethodKey key;
+
+        TypeReference(Object type, ConcurrentHashMap<MethodKey, ?> cache,
+                MethodKey key) {
+            super(type, collectedTypes);
+            this.cache = cache;
+            this.key = key;
+        }
+
+        void expunge() {
+            cache.remove(key);
+        }
+    }
+
     /**
      * Comparator to determine which of two methods is "closer" to the reference
      * method.
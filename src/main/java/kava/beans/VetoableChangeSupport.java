@@ -20,25 +20,46 @@ package kava.beans;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
 import java.util.Hashtable;
-import java.util.Iterator;
 import java.util.List;
-
-// FIXME: obviously need synchronization, when access listeners
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class VetoableChangeSupport implements Serializable {
 
     private static final long serialVersionUID = -5090210921595982017l;
 
-    private Hashtable<String, VetoableChangeSupport> children = new Hashtable<String, VetoableChangeSupport>();
+    // the serialized form of the original implementation
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("children", Hashtable.class), //$NON-NLS-1$
+            new ObjectStreamField("source", Object.class), //$NON-NLS-1$
+            new ObjectStreamField(
+                    "vetoableChangeSupportSerializedDataVersion", int.class) }; //$NON-NLS-1$
+
+    private static final kava.beans.VetoableChangeListener[] EMPTY = new kava.beans.VetoableChangeListener[0];
+
+    // The listeners of single properties, the keys are never removed
+    private transient ConcurrentHashMap<String, PropertyKey> propertyKeys = new ConcurrentHashMap<String, PropertyKey>();
+
+    // The references of weak and soft listeners, created on the first one
+    private transient volatile ReferenceQueue<Object> collectedListeners;
 
-    private transient ArrayList<kava.beans.VetoableChangeListener> globalListeners = new ArrayList<kava.beans.VetoableChangeListener>();
+    // The recorder of the dispatched changes, null unless installed
+    private transient volatile DispatchMetrics dispatchMetrics;
+
+    /*
+     * The listeners are kept in immutable arrays which are replaced under the
+     * lock of this object when a listener is added or removed, so that
+     * changes are fired without locking or copying.
+     */
+    private transient volatile kava.beans.VetoableChangeListener[] globalListeners = EMPTY;
 
     private Object source;
     
-    @SuppressWarnings("unused")
     // for serialization
     private int vetoableChangeSupportSerializedDataVersion = 2;
 
@@ -52,10 +73,10 @@ public class VetoableChangeSupport implements Serializable {
     public synchronized void removeVetoableChangeListener(String propertyName,
             kava.beans.VetoableChangeListener listener) {
         if ((propertyName != null) && (listener != null)) {
-            VetoableChangeSupport listeners = children.get(propertyName);
+            PropertyKey key = propertyKeys.get(propertyName);
 
-            if (listeners != null) {
-                listeners.removeVetoableChangeListener(listener);
+            if (key != null) {
+                key.listeners = remove(key.listeners, listener);
             }
         }
     }
@@ -63,42 +84,236 @@ public class VetoableChangeSupport implements Serializable {
     public synchronized void addVetoableChangeListener(String propertyName,
             kava.beans.VetoableChangeListener listener) {
         if (propertyName != null && listener != null) {
-            VetoableChangeSupport listeners = children.get(propertyName);
-
-            if (listeners == null) {
-                listeners = new VetoableChangeSupport(source);
-                children.put(propertyName, listeners);
-            }
-            listeners.addVetoableChangeListener(listener);
+            PropertyKey key = propertyKey(propertyName);
+            key.listeners = add(key.listeners, listener);
         }
     }
 
     public synchronized kava.beans.VetoableChangeListener[] getVetoableChangeListeners(
             String propertyName) {
-        VetoableChangeSupport listeners = null;
+        PropertyKey key = null;
 
         if (propertyName != null) {
-            listeners = children.get(propertyName);
+            key = propertyKeys.get(propertyName);
+        }
+        if (key == null) {
+            return new kava.beans.VetoableChangeListener[] {};
+        }
+        List<kava.beans.VetoableChangeListener> result = new ArrayList<kava.beans.VetoableChangeListener>();
+        addUnwrapped(result, key.listeners, null);
+        return result
+                .toArray(new kava.beans.VetoableChangeListener[result.size()]);
+    }
+
+    /**
+     * Adds a listener of all the properties which is only weakly referenced,
+     * so that it does not prevent its collection. Once collected it is
+     * removed from this object. The listener is not serialized. It may be
+     * removed by {@link #removeVetoableChangeListener(VetoableChangeListener)}.
+     * 
+     * @param listener
+     *            the listener to add.
+     */
+    public void addWeakVetoableChangeListener(
+            kava.beans.VetoableChangeListener listener) {
+        addReferenceListener(null, listener, false);
+    }
+
+    /**
+     * Adds a listener of the named property which is only weakly referenced,
+     * see {@link #addWeakVetoableChangeListener(VetoableChangeListener)}.
+     * 
+     * @param propertyName
+     *            the name of the property.
+     * @param listener
+     *            the listener to add.
+     */
+    public void addWeakVetoableChangeListener(String propertyName,
+            kava.beans.VetoableChangeListener listener) {
+        if (propertyName != null) {
+            addReferenceListener(propertyName, listener, false);
+        }
+    }
+
+    /**
+     * Adds a listener of all the properties which is only softly referenced,
+     * so that it is kept until the memory runs short. Once collected it is
+     * removed from this object. The listener is not serialized. It may be
+     * removed by {@link #removeVetoableChangeListener(VetoableChangeListener)}.
+     * 
+     * @param listener
+     *            the listener to add.
+     */
+    public void addSoftVetoableChangeListener(
+            kava.beans.VetoableChangeListener listener) {
+        addReferenceListener(null, listener, true);
+    }
+
+    /**
+     * Adds a listener of the named property which is only softly referenced,
+     * see {@link #addSoftVetoableChangeListener(VetoableChangeListener)}.
+     * 
+     * @param propertyName
+     *            the name of the property.
+     * @param listener
+     *            the listener to add.
+     */
+    public void addSoftVetoableChangeListener(String propertyName,
+            kava.beans.VetoableChangeListener listener) {
+        if (propertyName != null) {
+            addReferenceListener(propertyName, listener, true);
+        }
+    }
+
+    private synchronized void addReferenceListener(String propertyName,
+            kava.beans.VetoableChangeListener listener, boolean soft) {
+        if (listener instanceof kava.beans.VetoableChangeListenerProxy) {
+            kava.beans.VetoableChangeListenerProxy proxy = (kava.beans.VetoableChangeListenerProxy) listener;
+            propertyName = proxy.getPropertyName();
+            listener = (kava.beans.VetoableChangeListener) proxy.getListener();
+        }
+        if (listener == null) {
+            return;
+        }
+        if (collectedListeners == null) {
+            collectedListeners = new ReferenceQueue<Object>();
+        } else {
+            purgeCollectedListeners();
         }
-        return (listeners == null) ? new kava.beans.VetoableChangeListener[] {}
-                : getAsVetoableChangeListenerArray(listeners);
+        ReferenceListener reference = new ReferenceListener(listener, soft,
+                collectedListeners);
+        if (propertyName == null) {
+            globalListeners = add(globalListeners, reference);
+        } else {
+            PropertyKey key = propertyKey(propertyName);
+            key.listeners = add(key.listeners, reference);
+        }
+    }
+
+    /*
+     * Removes the listeners which were collected, if any, without
+     * allocating otherwise.
+     */
+    private void purgeCollectedListeners() {
+        ReferenceQueue<Object> queue = collectedListeners;
+        if (queue == null || queue.poll() == null) {
+            return;
+        }
+        synchronized (this) {
+            while (queue.poll() != null) {
+                // the lists are swept at once
+            }
+            globalListeners = purge(globalListeners);
+            for (PropertyKey key : propertyKeys.values()) {
+                key.listeners = purge(key.listeners);
+            }
+        }
+    }
+
+    private static kava.beans.VetoableChangeListener[] purge(
+            kava.beans.VetoableChangeListener[] listeners) {
+        List<kava.beans.VetoableChangeListener> result = new ArrayList<kava.beans.VetoableChangeListener>(
+                listeners.length);
+        for (kava.beans.VetoableChangeListener listener : listeners) {
+            if (!(listener instanceof ReferenceListener)
+                    || ((ReferenceListener) listener).get() != null) {
+                result.add(listener);
+            }
+        }
+        if (result.size() == listeners.length) {
+            return listeners;
+        }
+        return result.isEmpty() ? EMPTY : result
+                .toArray(new kava.beans.VetoableChangeListener[result.size()]);
     }
 
-    public synchronized boolean hasListeners(String propertyName) {
-        boolean result = globalListeners.size() > 0;
-        if (!result && propertyName != null) {
-            VetoableChangeSupport listeners = children.get(propertyName);
-            if (listeners != null) {
-                result = listeners.globalListeners.size() > 0;
+    /*
+     * Adds the listeners as they were added, skipping the collected ones and
+     * wrapping the others in proxies of the property if it is not null.
+     */
+    private static void addUnwrapped(
+            List<kava.beans.VetoableChangeListener> result,
+            kava.beans.VetoableChangeListener[] listeners, String propertyName) {
+        for (int i = 0; i < listeners.length; i++) {
+            kava.beans.VetoableChangeListener listener = (kava.beans.VetoableChangeListener) ReferenceListener
+                    .unwrap(listeners[i]);
+            if (listener != null) {
+                result.add(propertyName == null ? listener
+                        : new VetoableChangeListenerProxy(propertyName,
+                                listener));
             }
         }
+    }
+
+    /**
+     * Answers the key of the named property. Changes fired through the key
+     * reach the listeners of the property without looking them up by name.
+     * The key stays the same for the lifetime of this object.
+     * 
+     * @param propertyName
+     *            the name of the property.
+     * @return the key of the property.
+     */
+    public PropertyKey propertyKey(String propertyName) {
+        if (propertyName == null) {
+            throw new NullPointerException();
+        }
+        PropertyKey key = propertyKeys.get(propertyName);
+        if (key == null) {
+            PropertyKey newKey = new PropertyKey(this, propertyName);
+            key = propertyKeys.putIfAbsent(propertyName, newKey);
+            if (key == null) {
+                key = newKey;
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Installs a recorder of the changes passed to the listeners, or removes
+     * it if null, which is the default. Without a recorder nothing is
+     * measured. Reverted changes are not recorded.
+     * 
+     * @param metrics
+     *            the recorder, may be shared with other supports.
+     */
+    public void setDispatchMetrics(DispatchMetrics metrics) {
+        dispatchMetrics = metrics;
+    }
+
+    /**
+     * Answers the recorder of the changes passed to the listeners.
+     * 
+     * @return the recorder, or null if none is installed.
+     */
+    public DispatchMetrics getDispatchMetrics() {
+        return dispatchMetrics;
+    }
+
+    public boolean hasListeners(String propertyName) {
+        return isListened(propertyName);
+    }
+
+    /*
+     * Checks without locking whether a change of the property would reach
+     * any listener, used to skip firing before anything is allocated.
+     */
+    private boolean isListened(String propertyName) {
+        if (globalListeners.length > 0) {
+            return true;
+        }
+        boolean result = false;
+        if (propertyName != null) {
+            PropertyKey key = propertyKeys.get(propertyName);
+            result = (key != null && key.listeners.length > 0);
+        }
         return result;
     }
 
     public synchronized void removeVetoableChangeListener(
             kava.beans.VetoableChangeListener listener) {
         if (listener != null) {
-            globalListeners.remove(listener);
+            globalListeners = remove(globalListeners, listener);
         }
     }
 
@@ -110,39 +325,68 @@ public class VetoableChangeSupport implements Serializable {
                 addVetoableChangeListener(proxy.getPropertyName(),
                         (kava.beans.VetoableChangeListener) proxy.getListener());
             } else {
-                globalListeners.add(listener);
+                globalListeners = add(globalListeners, listener);
             }
         }
     }
 
+    private static kava.beans.VetoableChangeListener[] add(
+            kava.beans.VetoableChangeListener[] listeners,
+            kava.beans.VetoableChangeListener listener) {
+        kava.beans.VetoableChangeListener[] result = new kava.beans.VetoableChangeListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, result, 0, listeners.length);
+        result[listeners.length] = listener;
+        return result;
+    }
+
+    /*
+     * Removes the first listener equal to the given one, like List.remove.
+     */
+    private static kava.beans.VetoableChangeListener[] remove(
+            kava.beans.VetoableChangeListener[] listeners,
+            kava.beans.VetoableChangeListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (ReferenceListener.matches(listeners[i], listener)) {
+                if (listeners.length == 1) {
+                    return EMPTY;
+                }
+                kava.beans.VetoableChangeListener[] result = new kava.beans.VetoableChangeListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, result, 0, i);
+                System.arraycopy(listeners, i + 1, result, i, result.length - i);
+                return result;
+            }
+        }
+        return listeners;
+    }
+
     public synchronized kava.beans.VetoableChangeListener[] getVetoableChangeListeners() {
         List<kava.beans.VetoableChangeListener> result = new ArrayList<kava.beans.VetoableChangeListener>();
-        if (globalListeners != null) {
-            result.addAll(globalListeners);
-        }
-
-        for (Iterator<String> iterator = children.keySet().iterator(); iterator
-                .hasNext();) {
-            String propertyName = iterator.next();
-            VetoableChangeSupport namedListener = children
-                    .get(propertyName);
-            kava.beans.VetoableChangeListener[] childListeners = namedListener
-                    .getVetoableChangeListeners();
-            for (int i = 0; i < childListeners.length; i++) {
-                result.add(new VetoableChangeListenerProxy(propertyName,
-                        childListeners[i]));
-            }
+        addUnwrapped(result, globalListeners, null);
+
+        for (Map.Entry<String, PropertyKey> entry : propertyKeys.entrySet()) {
+            addUnwrapped(result, entry.getValue().listeners, entry.getKey());
         }
         return (result
                 .toArray(new kava.beans.VetoableChangeListener[result.size()]));
     }
 
     private void writeObject(ObjectOutputStream oos) throws IOException {
-        oos.defaultWriteObject();
-        kava.beans.VetoableChangeListener[] copy = new kava.beans.VetoableChangeListener[globalListeners
-                .size()];
-        globalListeners.toArray(copy);
-        for (kava.beans.VetoableChangeListener listener : copy) {
+        ObjectOutputStream.PutField fields = oos.putFields();
+        // the listeners of each property as a nested support
+        Hashtable<String, VetoableChangeSupport> children = new Hashtable<String, VetoableChangeSupport>();
+        for (PropertyKey key : propertyKeys.values()) {
+            if (key.listeners.length > 0) {
+                VetoableChangeSupport child = new VetoableChangeSupport(source);
+                child.globalListeners = key.listeners;
+                children.put(key.propertyName, child);
+            }
+        }
+        fields.put("children", children); //$NON-NLS-1$
+        fields.put("source", source); //$NON-NLS-1$
+        fields.put("vetoableChangeSupportSerializedDataVersion", //$NON-NLS-1$
+                vetoableChangeSupportSerializedDataVersion);
+        oos.writeFields();
+        for (kava.beans.VetoableChangeListener listener : globalListeners) {
             if (listener instanceof Serializable) {
                 oos.writeObject(listener);
             }
@@ -152,12 +396,23 @@ public class VetoableChangeSupport implements Serializable {
 
     }
 
+    @SuppressWarnings("unchecked")
     private void readObject(ObjectInputStream ois) throws IOException,
             ClassNotFoundException {
-        ois.defaultReadObject();
-        this.globalListeners = new ArrayList<kava.beans.VetoableChangeListener>();
-        if (null == this.children) {
-            this.children = new Hashtable<String, VetoableChangeSupport>();
+        ObjectInputStream.GetField fields = ois.readFields();
+        this.source = fields.get("source", null); //$NON-NLS-1$
+        this.vetoableChangeSupportSerializedDataVersion = fields.get(
+                "vetoableChangeSupportSerializedDataVersion", 2); //$NON-NLS-1$
+        this.globalListeners = EMPTY;
+        this.propertyKeys = new ConcurrentHashMap<String, PropertyKey>();
+        Hashtable<String, VetoableChangeSupport> children = (Hashtable<String, VetoableChangeSupport>) fields
+                .get("children", null); //$NON-NLS-1$
+        if (children != null) {
+            for (Map.Entry<String, VetoableChangeSupport> entry : children
+                    .entrySet()) {
+                propertyKey(entry.getKey()).listeners = entry.getValue()
+                        .getVetoableChangeListeners();
+            }
         }
         Object listener;
         do {
@@ -167,36 +422,52 @@ public class VetoableChangeSupport implements Serializable {
         } while (listener != null);
     }
 
+    /**
+     * Fires a vetoable change of a <code>boolean</code> property. Nothing is
+     * created if the values are equal or there are no listeners for the
+     * property.
+     */
     @SuppressWarnings("boxing")
     public void fireVetoableChange(String propertyName, boolean oldValue,
             boolean newValue) throws kava.beans.PropertyVetoException
 	{
-        kava.beans.PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
-                oldValue, newValue);
-        doFirePropertyChange(event);
+        if (oldValue == newValue || !isListened(propertyName)) {
+            return;
+        }
+        dispatch(createPropertyChangeEvent(propertyName, oldValue, newValue),
+                null);
     }
 
-    @SuppressWarnings("boxing")
+    /**
+     * Fires a vetoable change of an <code>int</code> property as an
+     * {@link IntPropertyChangeEvent}. Nothing is created if the values are
+     * equal or there are no listeners for the property.
+     */
     public void fireVetoableChange(String propertyName, int oldValue,
             int newValue) throws kava.beans.PropertyVetoException
 	{
-        kava.beans.PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
-                oldValue, newValue);
-        doFirePropertyChange(event);
+        if (oldValue == newValue || !isListened(propertyName)) {
+            return;
+        }
+        dispatch(new IntPropertyChangeEvent(source, propertyName, oldValue,
+                newValue), null);
     }
 
     public void fireVetoableChange(String propertyName, Object oldValue,
             Object newValue) throws kava.beans.PropertyVetoException
 	{
+        if (!isListened(propertyName)) {
+            return;
+        }
         kava.beans.PropertyChangeEvent event = createPropertyChangeEvent(propertyName,
                 oldValue, newValue);
-        doFirePropertyChange(event);
+        doFirePropertyChange(event, null);
     }
 
     public void fireVetoableChange(kava.beans.PropertyChangeEvent event)
             throws kava.beans.PropertyVetoException
 	{
-        doFirePropertyChange(event);
+        doFirePropertyChange(event, null);
     }
 
     private kava.beans.PropertyChangeEvent createPropertyChangeEvent(String propertyName,
@@ -204,55 +475,179 @@ public class VetoableChangeSupport implements Serializable {
         return new kava.beans.PropertyChangeEvent(source, propertyName, oldValue, newValue);
     }
 
-    private void doFirePropertyChange(kava.beans.PropertyChangeEvent event)
-            throws kava.beans.PropertyVetoException
+    private void doFirePropertyChange(kava.beans.PropertyChangeEvent event,
+            PropertyKey key) throws kava.beans.PropertyVetoException
 	{
-        String propName = event.getPropertyName();
         Object oldValue = event.getOldValue();
         Object newValue = event.getNewValue();
 
         if (newValue != null && oldValue != null && newValue.equals(oldValue)) {
             return;
         }
+        dispatch(event, key);
+    }
+
+    /*
+     * Fires the event to the listeners of all the properties, then to the
+     * listeners of its property, which is looked up if the key is null. If a
+     * listener vetoes the change, the listeners notified before it are told
+     * that the change is reverted.
+     */
+    private void dispatch(kava.beans.PropertyChangeEvent event, PropertyKey key)
+            throws kava.beans.PropertyVetoException {
+        purgeCollectedListeners();
 
         /* Take note of who we are going to notify (and potentially un-notify) */
 
-        kava.beans.VetoableChangeListener[] listensToAll;
-        VetoableChangeSupport listeners = null;
-        // property change
-        synchronized (this) {
-            listensToAll = globalListeners
-                    .toArray(new kava.beans.VetoableChangeListener[0]);
-            String propertyName = event.getPropertyName();
-            if (propertyName != null) {
-                listeners = children.get(propertyName);
-            }
+        kava.beans.VetoableChangeListener[] listensToAll = globalListeners;
+        if (key == null && event.getPropertyName() != null) {
+            key = propertyKeys.get(event.getPropertyName());
+        }
+        kava.beans.VetoableChangeListener[] listensToProperty = (key == null) ? EMPTY
+                : key.listeners;
+        DispatchMetrics metrics = dispatchMetrics;
+        if (metrics != null) {
+            metrics.recordFire(event.getPropertyName(), listensToAll.length
+                    + listensToProperty.length);
         }
 
+        int notified = 0;
         try {
-            for (kava.beans.VetoableChangeListener listener : listensToAll) {
-                listener.vetoableChange(event);
+            while (notified < listensToAll.length) {
+                notify(listensToAll[notified], event, metrics);
+                notified++;
+            }
+            while (notified < listensToAll.length + listensToProperty.length) {
+                notify(listensToProperty[notified - listensToAll.length],
+                        event, metrics);
+                notified++;
             }
         } catch (kava.beans.PropertyVetoException pve) {
             // Tell them we have changed it back
-            PropertyChangeEvent revertEvent = createPropertyChangeEvent(
-                    propName, newValue, oldValue);
-            for (kava.beans.VetoableChangeListener listener : listensToAll) {
+            kava.beans.PropertyChangeEvent revertEvent = createRevertEvent(event);
+            for (int i = 0; i < notified; i++) {
                 try {
-                    listener.vetoableChange(revertEvent);
+                    if (i < listensToAll.length) {
+                        listensToAll[i].vetoableChange(revertEvent);
+                    } else {
+                        listensToProperty[i - listensToAll.length]
+                                .vetoableChange(revertEvent);
+                    }
                 } catch (PropertyVetoException ignored) {
                     // expected
                 }
             }
             throw pve;
         }
-        if (listeners != null) {
-            listeners.fireVetoableChange(event);
+    }
+
+    private static void notify(kava.beans.VetoableChangeListener listener,
+            kava.beans.PropertyChangeEvent event, DispatchMetrics metrics)
+            throws kava.beans.PropertyVetoException {
+        if (metrics == null) {
+            listener.vetoableChange(event);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            listener.vetoableChange(event);
+        } finally {
+            metrics.recordLatency(listener, System.nanoTime() - start);
         }
     }
 
-    private static kava.beans.VetoableChangeListener[] getAsVetoableChangeListenerArray(
-            VetoableChangeSupport listeners) {
-        return listeners.globalListeners.toArray(new VetoableChangeListener[0]);
+    private kava.beans.PropertyChangeEvent createRevertEvent(
+            kava.beans.PropertyChangeEvent event) {
+        if (event instanceof IntPropertyChangeEvent) {
+            IntPropertyChangeEvent intEvent = (IntPropertyChangeEvent) event;
+            return new IntPropertyChangeEvent(source, event.getPropertyName(),
+                    intEvent.getIntNewValue(), intEvent.getIntOldValue());
+        }
+        return createPropertyChangeEvent(event.getPropertyName(), event
+                .getNewValue(), event.getOldValue());
+    }
+
+    /**
+     * The key of a property of a {@link VetoableChangeSupport}, holding the
+     * listeners of the property and firing its changes.
+     * 
+     * @see VetoableChangeSupport#propertyKey(String)
+     */
+    public static final class PropertyKey {
+
+        private final VetoableChangeSupport support;
+
+        private final String propertyName;
+
+        // replaced as a whole under the lock of the support
+        private volatile kava.beans.VetoableChangeListener[] listeners = EMPTY;
+
+        private PropertyKey(VetoableChangeSupport support, String propertyName) {
+            this.support = support;
+            this.propertyName = propertyName;
+        }
+
+        /**
+         * Answers the name of the property.
+         * 
+         * @return the name of the property.
+         */
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        /**
+         * Answers whether a change of the property would reach any listener.
+         * 
+         * @return true if the property or all the properties are listened to.
+         */
+        public boolean hasListeners() {
+            return support.globalListeners.length > 0 || listeners.length > 0;
+        }
+
+        /**
+         * Fires a vetoable change of the property, see
+         * {@link VetoableChangeSupport#fireVetoableChange(String, Object, Object)}.
+         */
+        public void fireVetoableChange(Object oldValue, Object newValue)
+                throws kava.beans.PropertyVetoException {
+            if (!hasListeners()) {
+                return;
+            }
+            support.doFirePropertyChange(support.createPropertyChangeEvent(
+                    propertyName, oldValue, newValue), this);
+        }
+
+        /**
+         * Fires a vetoable change of the <code>boolean</code> property, see
+         * {@link VetoableChangeSupport#fireVetoableChange(String, boolean, boolean)}.
+         */
+        @SuppressWarnings("boxing")
+        public void fireVetoableChange(boolean oldValue, boolean newValue)
+                throws kava.beans.PropertyVetoException {
+            if (oldValue == newValue || !hasListeners()) {
+                return;
+            }
+            support.dispatch(support.createPropertyChangeEvent(propertyName,
+                    oldValue, newValue), this);
+        }
+
+        /**
+         * Fires a vetoable change of the <code>int</code> property, see
+         * {@link VetoableChangeSupport#fireVetoableChange(String, int, int)}.
+         */
+        public void fireVetoableChange(int oldValue, int newValue)
+                throws kava.beans.PropertyVetoException {
+            if (oldValue == newValue || !hasListeners()) {
+                return;
+            }
+            support.dispatch(new IntPropertyChangeEvent(support.source,
+                    propertyName, oldValue, newValue), this);
+        }
+
+        @Override
+        public String toString() {
+            return propertyName;
+        }
     }
 }
@@ -22,6 +22,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Stack;
 
@@ -316,8 +317,10 @@ public class XMLDecoder {
             ArrayList<Object> args = new ArrayList<Object>(5);
             while (readObjs.peek() != elem) {
                 Elem argElem = readObjs.pop();
-                args.add(0, argElem.result);
+                args.add(argElem.result);
             }
+            // popped in reverse order, a bulk array "set" can have many
+            Collections.reverse(args);
             // decide method name
             String method = elem.methodName;
             if (elem.fromProperty) {
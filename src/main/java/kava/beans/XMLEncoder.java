@@ -36,6 +36,15 @@ import java.util.List;
  * <p>
  * The API is similar to <code>ObjectOutputStream</code>.
  * </p>
+ * <p>
+ * By default each differing element of an array is written by its own
+ * <code>&lt;void index="n"&gt;</code> element. Once
+ * {@link #setBulkArrayStatements(boolean)} is enabled, a run of consecutive
+ * differing elements is written by a single <code>&lt;void index="n"&gt;</code>
+ * element holding all their values, which is much shorter for large arrays.
+ * Such documents are read by <code>XMLDecoder</code>, but not by decoders
+ * which only accept one value per index element.
+ * </p>
  * 
  */
 public class XMLEncoder extends Encoder
@@ -95,6 +104,9 @@ public class XMLEncoder extends Encoder
 
 	private boolean writingObject = false;
 
+	// whether runs of array elements are written by one statement
+	private boolean bulkArrayStatements = false;
+
 	/**
 	 * Construct a <code>XMLEncoder</code>.
 	 * 
@@ -209,7 +221,7 @@ public class XMLEncoder extends Encoder
 			out.println("</byte>");
 		} else if (obj instanceof Character) {
 			out.print("<char>");
-			out.print(obj);
+			flushString(obj.toString());
 			out.println("</char>");
 		} else if (obj instanceof Double) {
 			out.print("<double>");
@@ -637,6 +649,16 @@ public class XMLEncoder extends Encoder
 		return owner;
 	}
 
+	/**
+	 * Answers whether runs of consecutive array elements are written by one
+	 * statement, see {@link #setBulkArrayStatements(boolean)}.
+	 * 
+	 * @return true if the runs are written by one statement
+	 */
+	public boolean isBulkArrayStatements() {
+		return bulkArrayStatements;
+	}
+
 	private boolean isBasicType(Object value) {
 		return value == null || value instanceof Boolean
 				|| value instanceof Byte || value instanceof Character
@@ -656,7 +678,7 @@ public class XMLEncoder extends Encoder
 	}
 
 	private boolean isSetArrayStat(Object target, String method, Object[] args) {
-		return ("set".equals(method) && args.length == 2 //$NON-NLS-1$
+		return ("set".equals(method) && args.length >= 2 //$NON-NLS-1$
 				&& args[0] instanceof Integer && target.getClass().isArray());
 	}
 
@@ -839,6 +861,19 @@ public class XMLEncoder extends Encoder
         return false;
     }
 
+    /**
+	 * Sets whether a run of consecutive differing array elements is written
+	 * by one <code>&lt;void index="n"&gt;</code> element with all the values,
+	 * instead of one element per value. It is disabled by default, as older
+	 * decoders only accept one value per index element.
+	 * 
+	 * @param enabled
+	 *            true to write the runs by one statement
+	 */
+	public void setBulkArrayStatements(boolean enabled) {
+		this.bulkArrayStatements = enabled;
+	}
+
     /**
 	 * Sets the owner of this encoder.
 	 * 
@@ -0,0 +1,239 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements.  See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package kava.beans.processor;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates the <code>BeanInfo</code> index of the classes marked with
+ * <code>kava.beans.BeanInfoIndexed</code>.
+ * <p>
+ * For each marked class the processor writes a resource named after the
+ * binary name of the class with the <code>.beaninfo</code> suffix into the
+ * package of the class. The resource lists the public methods declared by the
+ * class whose names start with <code>get</code>, <code>is</code>,
+ * <code>set</code>, <code>add</code> or <code>remove</code>, and whether the
+ * class has public methods to add and remove property change listeners. The
+ * <code>Introspector</code> validates the index against the loaded class and
+ * ignores it if it is out of date.
+ * </p>
+ */
+public class BeanInfoIndexProcessor extends AbstractProcessor {
+
+    private static final String ANNOTATION = "kava.beans.BeanInfoIndexed"; //$NON-NLS-1$
+
+    private static final String LISTENER = "kava.beans.PropertyChangeListener"; //$NON-NLS-1$
+
+    private static final String SUFFIX = ".beaninfo"; //$NON-NLS-1$
+
+    private static final String HEADER = "#kava.beans 1"; //$NON-NLS-1$
+
+    private static final String BOUND = "bound"; //$NON-NLS-1$
+
+    private static final String[] PREFIXES = { "get", "is", "set", "add", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+            "remove" }; //$NON-NLS-1$
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations,
+            RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind().isClass()) {
+                    writeIndex((TypeElement) element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void writeIndex(TypeElement type) {
+        PackageElement pkg = processingEnv.getElementUtils()
+                .getPackageOf(type);
+        String binaryName = processingEnv.getElementUtils()
+                .getBinaryName(type).toString();
+        String resourceName = binaryName.substring(binaryName
+                .lastIndexOf('.') + 1)
+                + SUFFIX;
+        try {
+            FileObject file = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT,
+                    pkg.getQualifiedName().toString(), resourceName, type);
+            Writer writer = new OutputStreamWriter(file.openOutputStream(),
+                    "UTF-8"); //$NON-NLS-1$
+            try {
+                writer.write(HEADER);
+                writer.write('\n');
+                if (isBound(type)) {
+                    writer.write(BOUND);
+                    writer.write('\n');
+                }
+                for (ExecutableElement method : ElementFilter
+                        .methodsIn(type.getEnclosedElements())) {
+                    if (method.getModifiers().contains(Modifier.PUBLIC)
+                            && hasAccessorPrefix(method)) {
+                        writer.write(method.getSimpleName().toString());
+                        writer.write(getDescriptor(method));
+                        writer.write('\n');
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Cannot write BeanInfo index: " + e, type); //$NON-NLS-1$
+        }
+    }
+
+    private static boolean hasAccessorPrefix(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        for (String prefix : PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Checks whether the type has public add and remove methods taking a
+     * single property change listener, declared or inherited, the same way
+     * the Introspector looks for them.
+     */
+    private boolean isBound(TypeElement type) {
+        boolean canAdd = false;
+        boolean canRemove = false;
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv
+                .getElementUtils().getAllMembers(type))) {
+            if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            List<? extends VariableElement> params = method.getParameters();
+            if (params.size() != 1
+                    || !LISTENER.equals(getBinaryName(params.get(0)
+                            .asType()))) {
+                continue;
+            }
+            String name = method.getSimpleName().toString();
+            if ("addPropertyChangeListener".equals(name)) { //$NON-NLS-1$
+                canAdd = true;
+            } else if ("removePropertyChangeListener".equals(name)) { //$NON-NLS-1$
+                canRemove = true;
+            }
+        }
+        return canAdd && canRemove;
+    }
+
+    private String getDescriptor(ExecutableElement method) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('(');
+        for (VariableElement param : method.getParameters()) {
+            appendDescriptor(sb, param.asType());
+        }
+        sb.append(')');
+        appendDescriptor(sb, method.getReturnType());
+        return sb.toString();
+    }
+
+    private void appendDescriptor(StringBuilder sb, TypeMirror type) {
+        type = processingEnv.getTypeUtils().erasure(type);
+        switch (type.getKind()) {
+        case BOOLEAN:
+            sb.append('Z');
+            break;
+        case BYTE:
+            sb.append('B');
+            break;
+        case CHAR:
+            sb.append('C');
+            break;
+        case SHORT:
+            sb.append('S');
+            break;
+        case INT:
+            sb.append('I');
+            break;
+        case LONG:
+            sb.append('J');
+            break;
+        case FLOAT:
+            sb.append('F');
+            break;
+        case DOUBLE:
+            sb.append('D');
+            break;
+        case VOID:
+            sb.append('V');
+            break;
+        case ARRAY:
+            sb.append('[');
+            appendDescriptor(sb, ((ArrayType) type).getComponentType());
+            break;
+        default:
+            sb.append('L').append(getBinaryName(type).replace('.', '/'))
+                    .append(';');
+        }
+    }
+
+    private String getBinaryName(TypeMirror type) {
+        type = processingEnv.getTypeUtils().erasure(type);
+        if (type.getKind() != TypeKind.DECLARED) {
+            return type.toString();
+        }
+        Element element = ((DeclaredType) type).asElement();
+        if (element.getKind() == ElementKind.TYPE_PARAMETER) {
+            return type.toString();
+        }
+        return processingEnv.getElementUtils().getBinaryName(
+                (TypeElement) element).toString();
+    }
+}
@@ -4,6 +4,10 @@
  */
 module kava.beans {
 	requires java.xml;
+	requires static java.compiler;
 
 	exports kava.beans;
+	exports kava.beans.processor;
+
+	provides javax.annotation.processing.Processor with kava.beans.processor.BeanInfoIndexProcessor;
 }
\ No newline at end of file
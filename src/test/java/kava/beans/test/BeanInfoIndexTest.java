@@ -0,0 +1,313 @@
+package kava.beans.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.Assert;
+import org.junit.Test;
+import kava.beans.BeanInfo;
+import kava.beans.BeanInfoIndexed;
+import kava.beans.EventSetDescriptor;
+import kava.beans.IndexedPropertyDescriptor;
+import kava.beans.Introspector;
+import kava.beans.MethodDescriptor;
+import kava.beans.PropertyChangeListener;
+import kava.beans.PropertyDescriptor;
+import kava.beans.processor.BeanInfoIndexProcessor;
+
+public class BeanInfoIndexTest extends Assert
+{
+	@BeanInfoIndexed
+	public static class IndexedBean
+	{
+		public String getName()
+		{
+			return null;
+		}
+
+		public void setName(String name)
+		{
+		}
+
+		public void addPropertyChangeListener(PropertyChangeListener listener)
+		{
+		}
+
+		public void removePropertyChangeListener(PropertyChangeListener listener)
+		{
+		}
+	}
+
+	private static final String SAMPLE = "package sample;\n" +
+			"import java.util.List;\n" +
+			"import kava.beans.*;\n" +
+			"@BeanInfoIndexed\n" +
+			"public class Sample<T> {\n" +
+			"  public String getName() { return null; }\n" +
+			"  public void setName(String name) { }\n" +
+			"  public int getCount() { return 0; }\n" +
+			"  public void setCount(int count) { }\n" +
+			"  public void setCount(String count) { }\n" +
+			"  public boolean isActive() { return false; }\n" +
+			"  public int[] getItems() { return null; }\n" +
+			"  public int getItems(int index) { return 0; }\n" +
+			"  public void setItems(int index, int value) { }\n" +
+			"  public List<T> getTags() { return null; }\n" +
+			"  public T getValue() { return null; }\n" +
+			"  public void addPropertyChangeListener(PropertyChangeListener listener) { }\n" +
+			"  public void removePropertyChangeListener(PropertyChangeListener listener) { }\n" +
+			"  void setHidden(int hidden) { }\n" +
+			"  public void reset() { }\n" +
+			"}\n";
+
+	@Test
+	public void testProcessorWritesIndex() throws Exception
+	{
+		Path dir = compileSample();
+		try
+		{
+			List<String> lines = Files.readAllLines(dir.resolve("sample/Sample.beaninfo"), StandardCharsets.UTF_8);
+
+			assertEquals("#kava.beans 1", lines.get(0));
+			assertEquals("bound", lines.get(1));
+			List<String> methods = new ArrayList<>(lines.subList(2, lines.size()));
+			Collections.sort(methods);
+			assertEquals(Arrays.asList(
+					"addPropertyChangeListener(Lkava/beans/PropertyChangeListener;)V",
+					"getCount()I",
+					"getItems()[I",
+					"getItems(I)I",
+					"getName()Ljava/lang/String;",
+					"getTags()Ljava/util/List;",
+					"getValue()Ljava/lang/Object;",
+					"isActive()Z",
+					"removePropertyChangeListener(Lkava/beans/PropertyChangeListener;)V",
+					"setCount(I)V",
+					"setCount(Ljava/lang/String;)V",
+					"setItems(II)V",
+					"setName(Ljava/lang/String;)V"), methods);
+		}
+		finally
+		{
+			delete(dir);
+		}
+	}
+
+	@Test
+	public void testIndexOfTestSources() throws Exception
+	{
+		InputStream in = IndexedBean.class.getResourceAsStream("BeanInfoIndexTest$IndexedBean.beaninfo");
+		assertNotNull(in);
+		in.close();
+
+		BeanInfo info = Introspector.getBeanInfo(IndexedBean.class);
+		assertEquals("name", info.getPropertyDescriptors()[1].getName());
+		assertTrue(info.getPropertyDescriptors()[1].isBound());
+		assertEquals(1, info.getEventSetDescriptors().length);
+	}
+
+	@Test
+	public void testIndexedClassMatchesReflection() throws Exception
+	{
+		Path indexed = compileSample();
+		Path reflected = Files.createTempDirectory("reflected");
+		Path stale = Files.createTempDirectory("stale");
+		try
+		{
+			Path classFile = indexed.resolve("sample/Sample.class");
+			Path index = indexed.resolve("sample/Sample.beaninfo");
+			Files.createDirectories(reflected.resolve("sample"));
+			Files.copy(classFile, reflected.resolve("sample/Sample.class"));
+			Files.createDirectories(stale.resolve("sample"));
+			Files.copy(classFile, stale.resolve("sample/Sample.class"));
+			// an index without the setter of count
+			List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+			lines.remove("setCount(I)V");
+			Files.write(stale.resolve("sample/Sample.beaninfo"), lines, StandardCharsets.UTF_8);
+
+			String viaIndex = describe(introspect(indexed));
+			assertEquals(describe(introspect(reflected)), viaIndex);
+			assertTrue(viaIndex, viaIndex.contains("property count int getCount setCount bound"));
+			assertTrue(viaIndex, viaIndex.contains("event propertyChange"));
+
+			// the index is what the introspector reads
+			assertTrue(describe(introspect(stale)).contains("property count int getCount null bound"));
+		}
+		finally
+		{
+			delete(indexed);
+			delete(reflected);
+			delete(stale);
+		}
+	}
+
+	@Test
+	public void testSnapshotEntriesOfChangedClassesAreIgnored() throws Exception
+	{
+		Path dir = compileSample();
+		File snapshot = File.createTempFile("beaninfo", ".snapshot");
+		try
+		{
+			// not indexed at compile time, so that the snapshot is used
+			Files.delete(dir.resolve("sample/Sample.beaninfo"));
+			String reflected = describe(introspect(dir));
+			try(URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, BeanInfoIndexTest.class.getClassLoader()))
+			{
+				Introspector.writeBeanInfoSnapshot(snapshot, Collections.singletonList(loader.loadClass("sample.Sample")));
+			}
+			Introspector.setBeanInfoSnapshot(snapshot);
+
+			assertEquals(reflected, describe(introspect(dir)));
+			assertEquals(1, Introspector.getBeanInfoSnapshotHitCount());
+
+			File classFile = dir.resolve("sample/Sample.class").toFile();
+			assertTrue(classFile.setLastModified(classFile.lastModified() - 10000));
+			assertEquals(reflected, describe(introspect(dir)));
+			assertEquals(1, Introspector.getBeanInfoSnapshotHitCount());
+		}
+		finally
+		{
+			Introspector.setBeanInfoSnapshot(null);
+			snapshot.delete();
+			delete(dir);
+		}
+	}
+
+	@Test
+	public void testSnapshotNoticesBeanInfoAddedNextToTheClass() throws Exception
+	{
+		Path dir = compileSample();
+		File snapshot = File.createTempFile("beaninfo", ".snapshot");
+		try
+		{
+			try(URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, BeanInfoIndexTest.class.getClassLoader()))
+			{
+				Introspector.writeBeanInfoSnapshot(snapshot, Collections.singletonList(loader.loadClass("sample.Sample")));
+			}
+			Introspector.setBeanInfoSnapshot(snapshot);
+			assertTrue(introspect(dir).getPropertyDescriptors().length > 0);
+
+			File packageDir = dir.resolve("sample").toFile();
+			long modified = packageDir.lastModified();
+			compile(dir, "sample/SampleBeanInfo.java", "package sample;\n" +
+					"public class SampleBeanInfo extends kava.beans.SimpleBeanInfo {\n" +
+					"  public kava.beans.PropertyDescriptor[] getPropertyDescriptors() { return new kava.beans.PropertyDescriptor[0]; }\n" +
+					"}\n");
+			// file systems with a coarse clock
+			assertTrue(packageDir.setLastModified(modified + 10000));
+			assertEquals(0, introspect(dir).getPropertyDescriptors().length);
+		}
+		finally
+		{
+			Introspector.setBeanInfoSnapshot(null);
+			snapshot.delete();
+			delete(dir);
+		}
+	}
+
+	private static BeanInfo introspect(Path dir) throws Exception
+	{
+		URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()}, BeanInfoIndexTest.class.getClassLoader());
+		try
+		{
+			return Introspector.getBeanInfo(loader.loadClass("sample.Sample"));
+		}
+		finally
+		{
+			loader.close();
+		}
+	}
+
+	private static String describe(BeanInfo info)
+	{
+		List<String> lines = new ArrayList<>();
+		for(PropertyDescriptor descriptor : info.getPropertyDescriptors())
+		{
+			String line = "property " + descriptor.getName() + " " + name(descriptor.getPropertyType()) + " " + name(descriptor.getReadMethod()) + " " + name(descriptor.getWriteMethod()) + (descriptor.isBound() ? " bound" : "");
+			if(descriptor instanceof IndexedPropertyDescriptor)
+			{
+				IndexedPropertyDescriptor indexed = (IndexedPropertyDescriptor) descriptor;
+				line += " indexed " + name(indexed.getIndexedPropertyType()) + " " + name(indexed.getIndexedReadMethod()) + " " + name(indexed.getIndexedWriteMethod());
+			}
+			lines.add(line);
+		}
+		for(EventSetDescriptor descriptor : info.getEventSetDescriptors())
+		{
+			lines.add("event " + descriptor.getName() + " " + name(descriptor.getListenerType()) + " " + name(descriptor.getAddListenerMethod()) + " " + name(descriptor.getRemoveListenerMethod()));
+		}
+		for(MethodDescriptor descriptor : info.getMethodDescriptors())
+		{
+			lines.add("method " + descriptor.getMethod().toGenericString());
+		}
+		Collections.sort(lines);
+		return String.join("\n", lines);
+	}
+
+	private static String name(Object object)
+	{
+		if(object instanceof Class)
+		{
+			return ((Class<?>) object).getName();
+		}
+		if(object instanceof java.lang.reflect.Method)
+		{
+			return ((java.lang.reflect.Method) object).getName();
+		}
+		return String.valueOf(object);
+	}
+
+	private static Path compileSample() throws Exception
+	{
+		Path dir = Files.createTempDirectory("indexed");
+		compile(dir, "sample/Sample.java", SAMPLE);
+		return dir;
+	}
+
+	private static void compile(Path dir, String name, String text) throws Exception
+	{
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertNotNull("the tests need a JDK", compiler);
+
+		Path source = dir.resolve(name);
+		Files.createDirectories(source.getParent());
+		Files.write(source, text.getBytes(StandardCharsets.UTF_8));
+
+		String classPath = new File(BeanInfoIndexed.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+		try
+		{
+			JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, Arrays.asList("-classpath", classPath, "-d", dir.toString()), null, fileManager.getJavaFileObjects(source.toFile()));
+			task.setProcessors(Collections.singletonList(new BeanInfoIndexProcessor()));
+			assertTrue(task.call());
+		}
+		finally
+		{
+			fileManager.close();
+		}
+	}
+
+	private static void delete(Path dir) throws IOException
+	{
+		List<Path> paths = Files.walk(dir).sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+		for(Path path : paths)
+		{
+			Files.delete(path);
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package kava.beans.test;
+
+import org.junit.Assert;
+import org.junit.Test;
+import kava.beans.EventHandler;
+import kava.beans.PropertyChangeEvent;
+import kava.beans.PropertyChangeListener;
+
+public class EventHandlerTest extends Assert
+{
+	public static class Target
+	{
+		private Object name;
+
+		public Object getName()
+		{
+			return name;
+		}
+
+		public void setName(Object name)
+		{
+			this.name = name;
+		}
+	}
+
+	@Test
+	public void testPropertiesAreLookedUpByName() throws Exception
+	{
+		Target target = new Target();
+		PropertyChangeListener listener = EventHandler.create(PropertyChangeListener.class, target, "name", "newValue");
+
+		listener.propertyChange(new PropertyChangeEvent(this, "value", "a", "b"));
+		assertEquals("b", target.getName());
+
+		// a nested property of the event
+		listener = EventHandler.create(PropertyChangeListener.class, target, "name", "source.name");
+		Target source = new Target();
+		source.setName("c");
+		listener.propertyChange(new PropertyChangeEvent(source, "value", null, null));
+		assertEquals("c", target.getName());
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testMissingProperty() throws Exception
+	{
+		PropertyChangeListener listener = EventHandler.create(PropertyChangeListener.class, new Target(), "name", "missing");
+		listener.propertyChange(new PropertyChangeEvent(this, "value", "a", "b"));
+	}
+}
@@ -0,0 +1,280 @@
+package kava.beans.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+import kava.beans.BeanInfo;
+import kava.beans.EventSetDescriptor;
+import kava.beans.Introspector;
+import kava.beans.MethodDescriptor;
+import kava.beans.PropertyChangeListener;
+import kava.beans.PropertyDescriptor;
+
+public class IntrospectorTest extends Assert
+{
+	public static class SomeBean
+	{
+		private String name;
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public void setName(String name)
+		{
+			this.name = name;
+		}
+	}
+
+	public static class SomeSubBean extends SomeBean
+	{
+		@Override
+		public String getName()
+		{
+			return "sub";
+		}
+	}
+
+	public static class EventBean
+	{
+		public void addPropertyChangeListener(PropertyChangeListener listener)
+		{
+		}
+
+		public void removePropertyChangeListener(PropertyChangeListener listener)
+		{
+		}
+	}
+
+	public static class EventSubBean extends EventBean
+	{
+		public void fire()
+		{
+		}
+	}
+
+	@Test
+	public void testSuperClassMethodsAndEventsAreMergedLazily() throws Exception
+	{
+		Introspector.flushCaches();
+		BeanInfo superInfo = Introspector.getBeanInfo(EventBean.class);
+		BeanInfo subInfo = Introspector.getBeanInfo(EventSubBean.class);
+
+		EventSetDescriptor[] superEvents = superInfo.getEventSetDescriptors();
+		EventSetDescriptor[] subEvents = subInfo.getEventSetDescriptors();
+		assertEquals(1, superEvents.length);
+		assertEquals(1, subEvents.length);
+		assertEquals("propertyChange", subEvents[0].getName());
+		assertNotSame(superEvents[0], subEvents[0]);
+
+		Method fire = EventSubBean.class.getMethod("fire");
+		Method add = EventBean.class.getMethod("addPropertyChangeListener", PropertyChangeListener.class);
+		boolean hasFire = false;
+		boolean hasAdd = false;
+		for(MethodDescriptor descriptor : subInfo.getMethodDescriptors())
+		{
+			hasFire |= fire.equals(descriptor.getMethod());
+			hasAdd |= add.equals(descriptor.getMethod());
+		}
+		assertTrue(hasFire);
+		assertTrue(hasAdd);
+		assertSame(subInfo.getMethodDescriptors(), subInfo.getMethodDescriptors());
+	}
+
+	@Test
+	public void testSuperClassDescriptorsAreNotShared() throws Exception
+	{
+		Introspector.flushCaches();
+
+		PropertyDescriptor superName = findProperty(Introspector.getBeanInfo(SomeBean.class), "name");
+		PropertyDescriptor subName = findProperty(Introspector.getBeanInfo(SomeSubBean.class), "name");
+
+		assertNotSame(superName, subName);
+		assertEquals(SomeBean.class, superName.getReadMethod().getDeclaringClass());
+		assertEquals(SomeSubBean.class, subName.getReadMethod().getDeclaringClass());
+		assertEquals(superName.getWriteMethod(), subName.getWriteMethod());
+	}
+
+	private static PropertyDescriptor findProperty(BeanInfo info, String name)
+	{
+		for(PropertyDescriptor descriptor : info.getPropertyDescriptors())
+		{
+			if(descriptor.getName().equals(name))
+			{
+				return descriptor;
+			}
+		}
+		throw new AssertionError(name);
+	}
+
+	@Test
+	public void testBeanInfoIsCached() throws Exception
+	{
+		BeanInfo info = Introspector.getBeanInfo(SomeBean.class);
+
+		assertSame(info, Introspector.getBeanInfo(SomeBean.class));
+	}
+
+	@Test
+	public void testFlushFromCaches() throws Exception
+	{
+		BeanInfo info = Introspector.getBeanInfo(SomeBean.class);
+
+		Introspector.flushFromCaches(SomeBean.class);
+
+		assertNotSame(info, Introspector.getBeanInfo(SomeBean.class));
+	}
+
+	@Test
+	public void testFlushCaches() throws Exception
+	{
+		BeanInfo info = Introspector.getBeanInfo(SomeBean.class);
+
+		Introspector.flushCaches();
+
+		BeanInfo flushed = Introspector.getBeanInfo(SomeBean.class);
+		assertNotSame(info, flushed);
+		assertSame(flushed, Introspector.getBeanInfo(SomeBean.class));
+	}
+
+	@Test
+	public void testVariantsAreCachedSeparately() throws Exception
+	{
+		BeanInfo info = Introspector.getBeanInfo(SomeBean.class);
+		BeanInfo ignoreAll = Introspector.getBeanInfo(SomeBean.class, Introspector.IGNORE_ALL_BEANINFO);
+		BeanInfo stopAtObject = Introspector.getBeanInfo(SomeBean.class, Object.class);
+
+		assertNotSame(info, ignoreAll);
+		assertNotSame(info, stopAtObject);
+		assertSame(ignoreAll, Introspector.getBeanInfo(SomeBean.class, Introspector.IGNORE_ALL_BEANINFO));
+		assertSame(stopAtObject, Introspector.getBeanInfo(SomeBean.class, Object.class));
+		assertSame(info, Introspector.getBeanInfo(SomeBean.class, Introspector.USE_ALL_BEANINFO));
+
+		Introspector.flushFromCaches(SomeBean.class);
+
+		assertNotSame(ignoreAll, Introspector.getBeanInfo(SomeBean.class, Introspector.IGNORE_ALL_BEANINFO));
+		assertNotSame(stopAtObject, Introspector.getBeanInfo(SomeBean.class, Object.class));
+	}
+
+	@Test
+	public void testMissingBeanInfoClassesAreRemembered() throws Exception
+	{
+		Introspector.getBeanInfo(SomeBean.class);
+		Introspector.flushFromCaches(SomeBean.class);
+
+		long saved = Introspector.getSavedBeanInfoLookupCount();
+		Introspector.getBeanInfo(SomeBean.class);
+
+		assertTrue(Introspector.getSavedBeanInfoLookupCount() > saved);
+	}
+
+	@Test
+	public void testPreload() throws Exception
+	{
+		Introspector.flushCaches();
+
+		Map<Class<?>, Throwable> failures = Introspector.preload(Arrays.asList(SomeBean.class, SomeSubBean.class)).get();
+
+		assertTrue(failures.isEmpty());
+		BeanInfo info = Introspector.getBeanInfo(SomeSubBean.class);
+		assertEquals(2, info.getPropertyDescriptors().length);
+	}
+
+	@Test
+	public void testConcurrentLookupsShareBeanInfo() throws Exception
+	{
+		Introspector.flushCaches();
+
+		int count = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		BeanInfo[] infos = new BeanInfo[count];
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		Thread[] threads = new Thread[count];
+		for(int i = 0; i < count; i++)
+		{
+			int index = i;
+			threads[i] = new Thread(() -> {
+				try
+				{
+					start.await();
+					infos[index] = Introspector.getBeanInfo(SomeBean.class);
+				}
+				catch(Throwable e)
+				{
+					error.set(e);
+				}
+			});
+			threads[i].start();
+		}
+		start.countDown();
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertNull(error.get());
+		for(BeanInfo info : infos)
+		{
+			assertSame(infos[0], info);
+		}
+	}
+
+	@Test
+	public void testBeanInfoSnapshot() throws Exception
+	{
+		File file = File.createTempFile("beaninfo", ".snapshot");
+		try
+		{
+			Introspector.writeBeanInfoSnapshot(file, Arrays.asList(SomeBean.class, SomeSubBean.class, Object.class));
+			Introspector.flushCaches();
+			Introspector.setBeanInfoSnapshot(file);
+			assertEquals(0, Introspector.getBeanInfoSnapshotHitCount());
+
+			PropertyDescriptor name = findProperty(Introspector.getBeanInfo(SomeSubBean.class), "name");
+			assertEquals(SomeSubBean.class.getMethod("getName"), name.getReadMethod());
+			assertEquals(SomeBean.class.getMethod("setName", String.class), name.getWriteMethod());
+			// the class, its super class and Object
+			assertEquals(3, Introspector.getBeanInfoSnapshotHitCount());
+
+			// not in the snapshot
+			Introspector.getBeanInfo(EventBean.class);
+			assertEquals(3, Introspector.getBeanInfoSnapshotHitCount());
+
+			Introspector.flushCaches();
+			Introspector.getBeanInfo(SomeBean.class);
+			// the class and Object again
+			assertEquals(5, Introspector.getBeanInfoSnapshotHitCount());
+		}
+		finally
+		{
+			Introspector.setBeanInfoSnapshot(null);
+			assertEquals(0, Introspector.getBeanInfoSnapshotHitCount());
+			Introspector.flushCaches();
+			file.delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testBeanInfoSnapshotRejectsOtherFiles() throws Exception
+	{
+		File file = File.createTempFile("beaninfo", ".snapshot");
+		try
+		{
+			Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+			Introspector.setBeanInfoSnapshot(file);
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package kava.beans.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import kava.beans.IndexedPropertyAccessor;
+import kava.beans.IndexedPropertyDescriptor;
+import kava.beans.PropertyAccessor;
+import kava.beans.PropertyDescriptor;
+
+public class PropertyAccessorTest extends Assert
+{
+	public static class SomeBean
+	{
+		private int count;
+		private double ratio;
+		private String name;
+		private int[] values = new int[3];
+
+		public int getCount()
+		{
+			return count;
+		}
+
+		public void setCount(int count)
+		{
+			this.count = count;
+		}
+
+		public double getRatio()
+		{
+			return ratio;
+		}
+
+		public void setRatio(double ratio)
+		{
+			this.ratio = ratio;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public void setName(String name)
+		{
+			if("bad".equals(name))
+			{
+				throw new IllegalStateException(name);
+			}
+			this.name = name;
+		}
+
+		public int[] getValues()
+		{
+			return values;
+		}
+
+		public void setValues(int[] values)
+		{
+			this.values = values;
+		}
+
+		public int getValues(int index)
+		{
+			return values[index];
+		}
+
+		public void setValues(int index, int value)
+		{
+			values[index] = value;
+		}
+	}
+
+	@Test
+	public void testTypedAccess() throws Exception
+	{
+		SomeBean bean = new SomeBean();
+		PropertyAccessor count = new PropertyDescriptor("count", SomeBean.class).getAccessor();
+		count.setInt(bean, 42);
+		assertEquals(42, count.getInt(bean));
+		assertEquals(42L, count.getLong(bean));
+		assertEquals(42.0, count.getDouble(bean), 0.0);
+		assertEquals(Integer.valueOf(42), count.get(bean));
+
+		PropertyAccessor ratio = new PropertyDescriptor("ratio", SomeBean.class).getAccessor();
+		ratio.setInt(bean, 3);
+		assertEquals(3.0, ratio.getDouble(bean), 0.0);
+		ratio.set(bean, Float.valueOf(0.5f));
+		assertEquals(0.5, ratio.getDouble(bean), 0.0);
+	}
+
+	@Test
+	public void testTypedAccessDoesNotBox() throws Exception
+	{
+		if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+		{
+			return;
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if(!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled())
+		{
+			return;
+		}
+
+		SomeBean bean = new SomeBean();
+		PropertyAccessor count = new PropertyDescriptor("count", SomeBean.class).getAccessor();
+		PropertyAccessor ratio = new PropertyDescriptor("ratio", SomeBean.class).getAccessor();
+		int calls = 100000;
+		long sum = 0;
+		// outside of the Integer cache, so that boxing would allocate
+		for(int i = 0; i < calls; i++)
+		{
+			count.setInt(bean, 1000 + i);
+			sum += count.getInt(bean) + count.getLong(bean);
+			ratio.setDouble(bean, i);
+			sum += (long) ratio.getDouble(bean);
+		}
+
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for(int i = 0; i < calls; i++)
+		{
+			count.setInt(bean, 1000 + i);
+			sum += count.getInt(bean) + count.getLong(bean);
+			ratio.setDouble(bean, i);
+			sum += (long) ratio.getDouble(bean);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		assertTrue(sum > 0);
+		// boxing would take at least 16 bytes for each of the calls
+		assertTrue("allocated " + allocated, allocated < calls);
+	}
+
+	@Test
+	public void testIllegalConversions() throws Exception
+	{
+		SomeBean bean = new SomeBean();
+		PropertyAccessor count = new PropertyDescriptor("count", SomeBean.class).getAccessor();
+		try
+		{
+			count.setLong(bean, 1L);
+			fail();
+		}
+		catch(IllegalArgumentException e)
+		{
+			// expected
+		}
+		try
+		{
+			count.set(bean, null);
+			fail();
+		}
+		catch(IllegalArgumentException e)
+		{
+			// expected
+		}
+		try
+		{
+			count.get(new Object());
+			fail();
+		}
+		catch(IllegalArgumentException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void testExceptionsAreWrapped() throws Exception
+	{
+		PropertyAccessor name = new PropertyDescriptor("name", SomeBean.class).getAccessor();
+		try
+		{
+			name.set(new SomeBean(), "bad");
+			fail();
+		}
+		catch(InvocationTargetException e)
+		{
+			assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void testAccessorIsCachedUntilMethodsChange() throws Exception
+	{
+		PropertyDescriptor descriptor = new PropertyDescriptor("name", SomeBean.class);
+		PropertyAccessor accessor = descriptor.getAccessor();
+		assertSame(accessor, descriptor.getAccessor());
+		assertTrue(accessor.isWritable());
+
+		descriptor.setWriteMethod(null);
+		assertNotSame(accessor, descriptor.getAccessor());
+		assertFalse(descriptor.getAccessor().isWritable());
+	}
+
+	@Test
+	public void testIndexedAccess() throws Exception
+	{
+		SomeBean bean = new SomeBean();
+		IndexedPropertyAccessor values = new IndexedPropertyDescriptor("values", SomeBean.class).getAccessor();
+		values.setIndexedInt(bean, 1, 7);
+		values.setIndexed(bean, 2, Integer.valueOf(9));
+		assertEquals(7, values.getIndexedInt(bean, 1));
+		assertEquals(Integer.valueOf(9), values.getIndexed(bean, 2));
+		assertArrayEquals(new int[]{0, 7, 9}, (int[]) values.get(bean));
+		try
+		{
+			values.getIndexed(bean, 3);
+			fail();
+		}
+		catch(InvocationTargetException e)
+		{
+			assertTrue(e.getCause() instanceof ArrayIndexOutOfBoundsException);
+		}
+	}
+}
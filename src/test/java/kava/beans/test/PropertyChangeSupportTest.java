@@ -1,8 +1,41 @@
 package kava.beans.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Assert;
 import org.junit.Test;
+import kava.beans.BatchPropertyChangeListener;
+import kava.beans.CharPropertyChangeEvent;
+import kava.beans.DispatchMetrics;
+import kava.beans.DoublePropertyChangeEvent;
+import kava.beans.FloatPropertyChangeEvent;
+import kava.beans.IndexedPropertyChangeEvent;
+import kava.beans.IntPropertyChangeEvent;
+import kava.beans.LongPropertyChangeEvent;
+import kava.beans.PropertyChangeEvent;
+import kava.beans.PropertyChangeListener;
+import kava.beans.PropertyChangeListenerProxy;
 import kava.beans.PropertyChangeSupport;
+import kava.beans.ShortPropertyChangeEvent;
+import kava.beans.VetoableChangeListener;
 
 /**
  * @author VISTALL
@@ -45,4 +78,1000 @@ public class PropertyChangeSupportTest extends Assert
 		assertEquals(enterPropertyOldValue[0], someValue);
 		assertEquals(enterPropertyNewValue[0], someValueNew);
 	}
+
+	@Test
+	public void testListenersChangedWhileFiring()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<String> calls = new ArrayList<>();
+		PropertyChangeListener late = event -> calls.add("late");
+		PropertyChangeListener second = event -> calls.add("second");
+		support.addPropertyChangeListener(event -> {
+			calls.add("first");
+			support.addPropertyChangeListener(late);
+			support.removePropertyChangeListener(second);
+		});
+		support.addPropertyChangeListener(second);
+
+		support.firePropertyChange(someField, someValue, someValueNew);
+		assertEquals(Arrays.asList("first", "second"), calls);
+
+		calls.clear();
+		support.firePropertyChange(someOtherField, someValue, someValueNew);
+		assertEquals(Arrays.asList("first", "late"), calls);
+	}
+
+	@Test
+	public void testGetListeners()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		PropertyChangeListener global = event -> {
+		};
+		PropertyChangeListener named = event -> {
+		};
+		support.addPropertyChangeListener(global);
+		support.addPropertyChangeListener(someField, named);
+
+		PropertyChangeListener[] listeners = support.getPropertyChangeListeners();
+		assertEquals(2, listeners.length);
+		assertSame(global, listeners[0]);
+		assertEquals(someField, ((PropertyChangeListenerProxy) listeners[1]).getPropertyName());
+		assertSame(named, ((PropertyChangeListenerProxy) listeners[1]).getListener());
+		assertTrue(support.hasListeners(someOtherField));
+
+		support.removePropertyChangeListener(global);
+		assertFalse(support.hasListeners(someOtherField));
+		assertTrue(support.hasListeners(someField));
+		assertArrayEquals(new PropertyChangeListener[]{named}, support.getPropertyChangeListeners(someField));
+	}
+
+	@Test
+	public void testPrimitiveFireSkipsEqualValues()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		support.addPropertyChangeListener(someField, events::add);
+		PropertyChangeSupport.PropertyKey key = support.propertyKey(someField);
+
+		support.firePropertyChange(someField, 1, 1);
+		support.firePropertyChange(someField, true, true);
+		support.fireIndexedPropertyChange(someField, 0, 1, 1);
+		support.fireIndexedPropertyChange(someField, 0, true, true);
+		key.firePropertyChange(2L, 2L);
+		key.firePropertyChange(Double.NaN, Double.NaN);
+		assertTrue(events.isEmpty());
+
+		key.firePropertyChange(0.0, -0.0);
+		key.firePropertyChange(2L, 3L);
+		support.propertyKey(someOtherField).firePropertyChange(2L, 3L);
+		assertEquals(2, events.size());
+		assertEquals(-0.0, ((Double) events.get(0).getNewValue()).doubleValue(), 0.0);
+		assertEquals(Long.valueOf(2L), events.get(1).getOldValue());
+		assertEquals(Long.valueOf(3L), events.get(1).getNewValue());
+	}
+
+	@Test
+	public void testNarrowPrimitivesFireAsInt()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		support.addPropertyChangeListener(events::add);
+
+		byte oldByte = 1;
+		byte newByte = 2;
+		short oldShort = 3;
+		short newShort = 4;
+		support.firePropertyChange(someField, oldByte, newByte);
+		support.firePropertyChange(someField, 'a', 'b');
+		support.firePropertyChange(someField, oldShort, newShort);
+		// mixed int and long values are boxed as they are
+		support.firePropertyChange(someField, 5, 6L);
+		assertEquals(4, events.size());
+
+		assertEquals(Integer.valueOf(1), events.get(0).getOldValue());
+		assertEquals(Integer.valueOf(2), events.get(0).getNewValue());
+		assertEquals(Integer.valueOf('a'), events.get(1).getOldValue());
+		assertEquals(Integer.valueOf('b'), events.get(1).getNewValue());
+		assertEquals(Integer.valueOf(3), events.get(2).getOldValue());
+		assertEquals(Integer.valueOf(4), events.get(2).getNewValue());
+		assertEquals(Integer.valueOf(5), events.get(3).getOldValue());
+		assertEquals(Long.valueOf(6L), events.get(3).getNewValue());
+	}
+
+	@Test
+	public void testFireWithoutListenersDoesNotAllocate()
+	{
+		if(!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+		{
+			return;
+		}
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if(!threads.isThreadAllocatedMemorySupported() || !threads.isThreadAllocatedMemoryEnabled())
+		{
+			return;
+		}
+
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		support.addPropertyChangeListener(someOtherField, events::add);
+
+		int calls = 100000;
+		for(int i = 0; i < calls; i++)
+		{
+			fireUnlistened(support, i);
+		}
+
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for(int i = 0; i < calls; i++)
+		{
+			fireUnlistened(support, i);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+		assertTrue(events.isEmpty());
+		// a single boxed value or event per call would be several bytes each
+		assertTrue("allocated " + allocated + " bytes", allocated < calls);
+	}
+
+	// every overload, with values outside of the Integer cache
+	private static void fireUnlistened(PropertyChangeSupport support, int i)
+	{
+		support.firePropertyChange(someField, someValue, someValueNew);
+		support.firePropertyChange(someField, (i & 1) == 0, (i & 1) != 0);
+		support.firePropertyChange(someField, 1000 + i, 2000 + i);
+		support.fireIndexedPropertyChange(someField, i, someValue, someValueNew);
+		support.fireIndexedPropertyChange(someField, i, (i & 1) == 0, (i & 1) != 0);
+		support.fireIndexedPropertyChange(someField, i, 1000 + i, 2000 + i);
+		support.fireLongPropertyChange(someField, 1000L + i, 2000L + i);
+		support.fireDoublePropertyChange(someField, i + 0.5, i + 1.5);
+		support.fireFloatPropertyChange(someField, i + 0.5f, i + 1.5f);
+		support.fireCharPropertyChange(someField, (char) (1000 + i), (char) (2000 + i));
+		support.fireShortPropertyChange(someField, (short) (1000 + i), (short) (2000 + i));
+	}
+
+	@Test
+	public void testNamedPrimitiveEvents()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		support.addPropertyChangeListener(someField, events::add);
+
+		support.fireLongPropertyChange(someField, 1L, 2L);
+		support.fireDoublePropertyChange(someField, 0.5, 1.5);
+		support.fireFloatPropertyChange(someField, 2.5f, 3.5f);
+		support.fireCharPropertyChange(someField, 'a', 'b');
+		support.fireShortPropertyChange(someField, (short) 3, (short) 4);
+		// equal values, and values nobody listens to
+		support.fireLongPropertyChange(someField, 5L, 5L);
+		support.fireDoublePropertyChange(someField, Double.NaN, Double.NaN);
+		support.fireFloatPropertyChange(someField, Float.NaN, Float.NaN);
+		support.fireCharPropertyChange(someField, 'c', 'c');
+		support.fireShortPropertyChange(someField, (short) 6, (short) 6);
+		support.fireShortPropertyChange(someOtherField, (short) 7, (short) 8);
+		assertEquals(5, events.size());
+
+		LongPropertyChangeEvent longEvent = (LongPropertyChangeEvent) events.get(0);
+		assertEquals(1L, longEvent.getLongOldValue());
+		assertEquals(Long.valueOf(2L), longEvent.getNewValue());
+
+		DoublePropertyChangeEvent doubleEvent = (DoublePropertyChangeEvent) events.get(1);
+		assertEquals(0.5, doubleEvent.getDoubleOldValue(), 0.0);
+		assertEquals(Double.valueOf(1.5), doubleEvent.getNewValue());
+
+		FloatPropertyChangeEvent floatEvent = (FloatPropertyChangeEvent) events.get(2);
+		assertEquals(2.5f, floatEvent.getFloatOldValue(), 0.0f);
+		assertEquals(Float.valueOf(3.5f), floatEvent.getNewValue());
+		assertSame(floatEvent.getNewValue(), floatEvent.getNewValue());
+
+		CharPropertyChangeEvent charEvent = (CharPropertyChangeEvent) events.get(3);
+		assertEquals('a', charEvent.getCharOldValue());
+		assertEquals(Character.valueOf('b'), charEvent.getNewValue());
+
+		ShortPropertyChangeEvent shortEvent = (ShortPropertyChangeEvent) events.get(4);
+		assertEquals(3, shortEvent.getShortOldValue());
+		assertEquals(Short.valueOf((short) 4), shortEvent.getNewValue());
+		assertEquals(someField, shortEvent.getPropertyName());
+		assertSame(source, shortEvent.getSource());
+	}
+
+	@Test
+	public void testMergedEventsKeepSourceAndPropagationId()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		Object otherSource = new Object();
+		Object propagationId = new Object();
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		support.addPropertyChangeListener(events::add);
+
+		support.beginBatch();
+		PropertyChangeEvent first = new PropertyChangeEvent(otherSource, someField, someValue, "temp");
+		first.setPropagationId(propagationId);
+		support.firePropertyChange(first);
+		support.firePropertyChange(someField, "temp", someValueNew);
+		support.firePropertyChange(new IntPropertyChangeEvent(otherSource, someOtherField, 1, 2));
+		support.firePropertyChange(someOtherField, 2, 3);
+		support.endBatch();
+
+		assertEquals(2, events.size());
+		assertSame(otherSource, events.get(0).getSource());
+		assertSame(propagationId, events.get(0).getPropagationId());
+		assertEquals(someValue, events.get(0).getOldValue());
+		assertEquals(someValueNew, events.get(0).getNewValue());
+		assertSame(otherSource, events.get(1).getSource());
+		assertEquals(3, ((IntPropertyChangeEvent) events.get(1)).getIntNewValue());
+
+		// coalesced in the queue of an asynchronous dispatch
+		events.clear();
+		List<Runnable> tasks = new ArrayList<>();
+		support.setAsynchronousDispatch(tasks::add, 1, PropertyChangeSupport.BackpressurePolicy.COALESCE);
+		support.firePropertyChange(first);
+		support.firePropertyChange(someField, "temp", someValueNew);
+		tasks.get(0).run();
+
+		assertEquals(1, events.size());
+		assertSame(otherSource, events.get(0).getSource());
+		assertSame(propagationId, events.get(0).getPropagationId());
+		assertEquals(someValueNew, events.get(0).getNewValue());
+	}
+
+	@Test
+	public void testBatchMergesNamedPrimitiveEvents()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent[]> batches = new ArrayList<>();
+		support.addPropertyChangeListener(new BatchPropertyChangeListener()
+		{
+			@Override
+			public void propertyChange(PropertyChangeEvent event)
+			{
+				fail();
+			}
+
+			@Override
+			public void propertiesChanged(PropertyChangeEvent[] events)
+			{
+				batches.add(events);
+			}
+		});
+
+		support.beginBatch();
+		support.fireFloatPropertyChange(someField, 1f, 2f);
+		support.fireFloatPropertyChange(someField, 2f, 3f);
+		support.fireCharPropertyChange(someOtherField, 'a', 'b');
+		support.fireCharPropertyChange(someOtherField, 'b', 'a');
+		support.endBatch();
+
+		assertEquals(1, batches.size());
+		assertEquals(1, batches.get(0).length);
+		FloatPropertyChangeEvent merged = (FloatPropertyChangeEvent) batches.get(0)[0];
+		assertEquals(1f, merged.getFloatOldValue(), 0.0f);
+		assertEquals(3f, merged.getFloatNewValue(), 0.0f);
+	}
+
+	@Test
+	public void testPrimitiveEvents()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		support.addPropertyChangeListener(events::add);
+		PropertyChangeSupport.PropertyKey key = support.propertyKey(someField);
+
+		support.firePropertyChange(someField, 1, 2);
+		key.firePropertyChange(3L, 4L);
+		key.firePropertyChange(0.5, 1.5);
+		assertEquals(3, events.size());
+
+		IntPropertyChangeEvent intEvent = (IntPropertyChangeEvent) events.get(0);
+		assertEquals(1, intEvent.getIntOldValue());
+		assertEquals(2, intEvent.getIntNewValue());
+		assertEquals(Integer.valueOf(1), intEvent.getOldValue());
+		assertSame(intEvent.getNewValue(), intEvent.getNewValue());
+
+		LongPropertyChangeEvent longEvent = (LongPropertyChangeEvent) events.get(1);
+		assertEquals(3L, longEvent.getLongOldValue());
+		assertEquals(Long.valueOf(4L), longEvent.getNewValue());
+
+		DoublePropertyChangeEvent doubleEvent = (DoublePropertyChangeEvent) events.get(2);
+		assertEquals(0.5, doubleEvent.getDoubleOldValue(), 0.0);
+		assertEquals(Double.valueOf(1.5), doubleEvent.getNewValue());
+	}
+
+	@Test
+	public void testBatch()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent[]> batches = new ArrayList<>();
+		List<PropertyChangeEvent> singles = new ArrayList<>();
+		List<PropertyChangeEvent> named = new ArrayList<>();
+		support.addPropertyChangeListener(new BatchPropertyChangeListener()
+		{
+			@Override
+			public void propertiesChanged(PropertyChangeEvent[] events)
+			{
+				batches.add(events);
+			}
+
+			@Override
+			public void propertyChange(PropertyChangeEvent event)
+			{
+				fail();
+			}
+		});
+		support.addPropertyChangeListener(singles::add);
+		support.addPropertyChangeListener(someOtherField, named::add);
+
+		support.beginBatch();
+		support.firePropertyChange(someField, 1, 2);
+		support.beginBatch();
+		support.firePropertyChange(someOtherField, someValue, "temp");
+		support.firePropertyChange(someField, 2, 3);
+		support.endBatch();
+		support.fireIndexedPropertyChange(someField, 0, someValue, someValueNew);
+		support.firePropertyChange(someOtherField, "temp", someValueNew);
+		support.firePropertyChange("reverted", 5, 6);
+		support.firePropertyChange("reverted", 6, 5);
+		assertTrue(batches.isEmpty());
+		assertTrue(singles.isEmpty());
+		support.endBatch();
+
+		assertEquals(1, batches.size());
+		PropertyChangeEvent[] events = batches.get(0);
+		assertEquals(3, events.length);
+		assertEquals(1, ((IntPropertyChangeEvent) events[0]).getIntOldValue());
+		assertEquals(3, ((IntPropertyChangeEvent) events[0]).getIntNewValue());
+		assertEquals(someValue, events[1].getOldValue());
+		assertEquals(someValueNew, events[1].getNewValue());
+		assertTrue(events[2] instanceof IndexedPropertyChangeEvent);
+		assertEquals(Arrays.asList(events), singles);
+		assertEquals(Arrays.asList(events[1]), named);
+
+		try
+		{
+			support.endBatch();
+			fail();
+		}
+		catch(IllegalStateException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void testAsynchronousDispatch() throws Exception
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		List<Runnable> tasks = new ArrayList<>();
+		support.setAsynchronousDispatch(tasks::add, 2, PropertyChangeSupport.BackpressurePolicy.DROP_OLDEST);
+		assertTrue(support.isAsynchronousDispatch());
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		support.addPropertyChangeListener(events::add);
+		support.firePropertyChange(someField, 1, 2);
+		support.firePropertyChange(someField, 2, 3);
+		support.firePropertyChange(someField, 3, 4);
+		assertTrue(events.isEmpty());
+		assertEquals(1, tasks.size());
+		tasks.get(0).run();
+		assertEquals(2, events.size());
+		assertEquals(2, ((IntPropertyChangeEvent) events.get(0)).getIntOldValue());
+		assertEquals(4, ((IntPropertyChangeEvent) events.get(1)).getIntNewValue());
+
+		tasks.clear();
+		events.clear();
+		support.setAsynchronousDispatch(tasks::add, 2, PropertyChangeSupport.BackpressurePolicy.COALESCE);
+		support.firePropertyChange(someField, 1, 2);
+		support.firePropertyChange(someOtherField, someValue, someValueNew);
+		support.firePropertyChange(someField, 2, 3);
+		tasks.get(0).run();
+		assertEquals(2, events.size());
+		assertEquals(1, ((IntPropertyChangeEvent) events.get(0)).getIntOldValue());
+		assertEquals(3, ((IntPropertyChangeEvent) events.get(0)).getIntNewValue());
+		assertEquals(someOtherField, events.get(1).getPropertyName());
+
+		events.clear();
+		support.setSynchronousDispatch();
+		support.firePropertyChange(someField, 1, 2);
+		assertEquals(1, events.size());
+	}
+
+	@Test
+	public void testSwitchingDispatchKeepsOrder()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		List<Integer> values = new ArrayList<>();
+		support.addPropertyChangeListener(someField, event -> values.add(((IntPropertyChangeEvent) event).getIntNewValue()));
+
+		// to another executor while changes are queued
+		List<Runnable> first = new ArrayList<>();
+		List<Runnable> second = new ArrayList<>();
+		List<Runnable> third = new ArrayList<>();
+		support.setAsynchronousDispatch(first::add, 8, PropertyChangeSupport.BackpressurePolicy.BLOCK);
+		support.firePropertyChange(someField, 0, 1);
+		support.firePropertyChange(someField, 1, 2);
+		support.setAsynchronousDispatch(second::add, 8, PropertyChangeSupport.BackpressurePolicy.BLOCK);
+		support.firePropertyChange(someField, 2, 3);
+		support.setAsynchronousDispatch(third::add, 8, PropertyChangeSupport.BackpressurePolicy.BLOCK);
+		support.firePropertyChange(someField, 3, 4);
+		assertEquals(1, first.size());
+		assertTrue(second.isEmpty());
+		assertTrue(third.isEmpty());
+
+		first.get(0).run();
+		assertEquals(Arrays.asList(1, 2), values);
+		assertEquals(1, second.size());
+		assertTrue(third.isEmpty());
+		second.get(0).run();
+		assertEquals(Arrays.asList(1, 2, 3), values);
+		assertEquals(1, third.size());
+		third.get(0).run();
+		assertEquals(Arrays.asList(1, 2, 3, 4), values);
+
+		// to synchronous dispatch while changes are queued
+		values.clear();
+		third.clear();
+		support.firePropertyChange(someField, 4, 5);
+		support.setSynchronousDispatch();
+		assertFalse(support.isAsynchronousDispatch());
+		support.firePropertyChange(someField, 5, 6);
+		assertTrue(values.isEmpty());
+		assertEquals(1, third.size());
+		third.get(0).run();
+		assertEquals(Arrays.asList(5, 6), values);
+		support.firePropertyChange(someField, 6, 7);
+		assertEquals(Arrays.asList(5, 6, 7), values);
+		assertEquals(1, third.size());
+
+		// back to asynchronous dispatch with nothing queued
+		values.clear();
+		List<Runnable> fourth = new ArrayList<>();
+		support.setAsynchronousDispatch(fourth::add, 8, PropertyChangeSupport.BackpressurePolicy.BLOCK);
+		support.firePropertyChange(someField, 7, 8);
+		assertEquals(1, fourth.size());
+		fourth.get(0).run();
+		assertEquals(Arrays.asList(8), values);
+	}
+
+	@Test
+	public void testSwitchingDispatchWhileFiringKeepsOrder() throws Exception
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Integer> values = Collections.synchronizedList(new ArrayList<>());
+		support.addPropertyChangeListener(someField, event -> values.add(((IntPropertyChangeEvent) event).getIntNewValue()));
+		for(int i = 1; i <= 2000; i++)
+		{
+			if(i % 100 == 0)
+			{
+				support.setSynchronousDispatch();
+			}
+			else if(i % 50 == 0)
+			{
+				support.setAsynchronousDispatch(executor, 4, PropertyChangeSupport.BackpressurePolicy.BLOCK);
+			}
+			support.firePropertyChange(someField, i - 1, i);
+		}
+		// the executor must accept the tasks of the dispatchers handing off
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while(values.size() < 2000 && System.nanoTime() < deadline)
+		{
+			Thread.sleep(1);
+		}
+		executor.shutdown();
+
+		assertEquals(2000, values.size());
+		for(int i = 0; i < values.size(); i++)
+		{
+			assertEquals(i + 1, values.get(i).intValue());
+		}
+	}
+
+	@Test
+	public void testAsynchronousDispatchKeepsOrder() throws Exception
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		support.setAsynchronousDispatch(executor, 8, PropertyChangeSupport.BackpressurePolicy.BLOCK);
+
+		List<Integer> values = new ArrayList<>();
+		support.addPropertyChangeListener(someField, event -> values.add(((IntPropertyChangeEvent) event).getIntNewValue()));
+		for(int i = 1; i <= 1000; i++)
+		{
+			support.firePropertyChange(someField, i - 1, i);
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(1000, values.size());
+		for(int i = 0; i < values.size(); i++)
+		{
+			assertEquals(i + 1, values.get(i).intValue());
+		}
+	}
+
+	@Test
+	public void testPropertyKey()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		PropertyChangeSupport.PropertyKey key = support.propertyKey(someField);
+		assertSame(key, support.propertyKey(someField));
+		assertEquals(someField, key.getPropertyName());
+		assertFalse(key.hasListeners());
+
+		List<PropertyChangeEvent> named = new ArrayList<>();
+		List<PropertyChangeEvent> other = new ArrayList<>();
+		support.addPropertyChangeListener(someField, named::add);
+		support.addPropertyChangeListener(someOtherField, other::add);
+		assertTrue(key.hasListeners());
+
+		key.firePropertyChange(1, 2);
+		key.firePropertyChange(someValue, someValue);
+		key.firePropertyChange(someValue, someValueNew);
+		assertEquals(2, named.size());
+		assertEquals(2, ((IntPropertyChangeEvent) named.get(0)).getIntNewValue());
+		assertEquals(someValueNew, named.get(1).getNewValue());
+		assertTrue(other.isEmpty());
+	}
+
+	@Test
+	public void testWeakListeners() throws Exception
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		PropertyChangeListener listener = events::add;
+		support.addWeakPropertyChangeListener(listener);
+		support.addSoftPropertyChangeListener(someField, listener);
+		assertEquals(2, support.getPropertyChangeListeners().length);
+		assertSame(listener, support.getPropertyChangeListeners()[0]);
+
+		support.firePropertyChange(someField, 1, 2);
+		assertEquals(2, events.size());
+		support.removePropertyChangeListener(listener);
+		support.removePropertyChangeListener(someField, listener);
+		assertEquals(0, support.getPropertyChangeListeners().length);
+
+		// not a lambda, which could be kept by its call site
+		support.addWeakPropertyChangeListener(new PropertyChangeListener()
+		{
+			@Override
+			public void propertyChange(PropertyChangeEvent event)
+			{
+				fail();
+			}
+		});
+		for(int i = 0; i < 100 && support.getPropertyChangeListeners().length > 0; i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertEquals(0, support.getPropertyChangeListeners().length);
+		support.firePropertyChange(someField, 1, 2);
+		assertFalse(support.hasListeners(someField));
+	}
+
+	@Test
+	public void testCollectedListenerIsPurged() throws Exception
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		addCollectable(support, events);
+		support.firePropertyChange(someField, 1, 2);
+		assertEquals(1, events.size());
+
+		// a fire sweeps every property once the reference is enqueued
+		for(int i = 0; i < 100 && (support.hasListeners(someField) || support.hasListeners(someOtherField)); i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+			support.firePropertyChange(someField, 2, 3);
+		}
+		assertFalse(support.hasListeners(someField));
+		assertFalse(support.hasListeners(someOtherField));
+		assertEquals(1, events.size());
+	}
+
+	// registers listeners which nothing else references
+	private static void addCollectable(PropertyChangeSupport support, List<PropertyChangeEvent> events)
+	{
+		support.addWeakPropertyChangeListener(someField, new PropertyChangeListener()
+		{
+			@Override
+			public void propertyChange(PropertyChangeEvent event)
+			{
+				events.add(event);
+			}
+		});
+		support.addWeakPropertyChangeListener(someOtherField, new PropertyChangeListener()
+		{
+			@Override
+			public void propertyChange(PropertyChangeEvent event)
+			{
+				events.add(event);
+			}
+		});
+	}
+
+	@Test
+	public void testReferenceListenersAreRemovedByTheOriginal()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		PropertyChangeListener listener = events::add;
+		support.addSoftPropertyChangeListener(listener);
+		support.addWeakPropertyChangeListener(new PropertyChangeListenerProxy(someField, listener));
+		support.addSoftPropertyChangeListener(someOtherField, listener);
+
+		assertArrayEquals(new PropertyChangeListener[]{listener}, support.getPropertyChangeListeners(someField));
+		PropertyChangeListener[] listeners = support.getPropertyChangeListeners();
+		assertEquals(3, listeners.length);
+		assertSame(listener, listeners[0]);
+		assertSame(listener, ((PropertyChangeListenerProxy) listeners[1]).getListener());
+
+		support.firePropertyChange(someField, 1, 2);
+		assertEquals(2, events.size());
+
+		support.removePropertyChangeListener(listener);
+		support.removePropertyChangeListener(new PropertyChangeListenerProxy(someField, listener));
+		assertFalse(support.hasListeners(someField));
+		assertTrue(support.hasListeners(someOtherField));
+		support.removePropertyChangeListener(someOtherField, listener);
+		assertFalse(support.hasListeners(someOtherField));
+		assertEquals(0, support.getPropertyChangeListeners().length);
+	}
+
+	@Test
+	public void testDispatchMetrics()
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		assertNull(support.getDispatchMetrics());
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		PropertyChangeListener listener = events::add;
+		support.addPropertyChangeListener(listener);
+		support.addPropertyChangeListener(someField, listener);
+		support.firePropertyChange(someField, 1, 2);
+
+		DispatchMetrics metrics = new DispatchMetrics();
+		support.setDispatchMetrics(metrics);
+		support.firePropertyChange(someField, 1, 2);
+		support.firePropertyChange(someField, 2, 3);
+		support.firePropertyChange(someOtherField, someValue, someValueNew);
+		support.firePropertyChange(null, someValue, someValueNew);
+
+		DispatchMetrics.Snapshot snapshot = metrics.snapshot();
+		assertEquals(2, snapshot.getFireCount(someField));
+		assertEquals(1, snapshot.getFireCount(someOtherField));
+		assertEquals(1, snapshot.getFireCount(null));
+		assertEquals(Long.valueOf(4), snapshot.getListenerCounts().get(someField));
+		long[] histogram = snapshot.getLatencyHistograms().get(listener.getClass());
+		assertEquals(6, Arrays.stream(histogram).sum());
+
+		metrics.reset();
+		assertTrue(metrics.snapshot().getFireCounts().isEmpty());
+	}
+
+	@Test
+	public void testDispatchMetricsDoNotKeepListenerClasses() throws Exception
+	{
+		DispatchMetrics metrics = new DispatchMetrics();
+		WeakReference<Class<?>> listenerClass = fireToIsolatedListener(metrics);
+		assertEquals(1, metrics.snapshot().getLatencyHistograms().size());
+
+		for(int i = 0; i < 100 && listenerClass.get() != null; i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(listenerClass.get());
+		assertTrue(metrics.snapshot().getLatencyHistograms().isEmpty());
+	}
+
+	public static class IsolatedListener implements PropertyChangeListener
+	{
+		@Override
+		public void propertyChange(PropertyChangeEvent event)
+		{
+		}
+	}
+
+	// notifies an instance of IsolatedListener defined by a loader of its own
+	private static WeakReference<Class<?>> fireToIsolatedListener(DispatchMetrics metrics) throws Exception
+	{
+		Class<?> type = isolate(IsolatedListener.class);
+
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		support.setDispatchMetrics(metrics);
+		support.addPropertyChangeListener((PropertyChangeListener) type.newInstance());
+		support.firePropertyChange(someField, 1, 2);
+		return new WeakReference<Class<?>>(type);
+	}
+
+	/**
+	 * Defines a copy of the class by a loader of its own, which can be collected with it.
+	 */
+	static Class<?> isolate(Class<?> original) throws Exception
+	{
+		String name = original.getName();
+		InputStream in = original.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class");
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		for(int count; (count = in.read(buffer)) > 0; )
+		{
+			bytes.write(buffer, 0, count);
+		}
+		in.close();
+		byte[] code = bytes.toByteArray();
+
+		ClassLoader loader = new ClassLoader(original.getClassLoader())
+		{
+			@Override
+			protected Class<?> loadClass(String className, boolean resolve) throws ClassNotFoundException
+			{
+				if(!className.equals(name))
+				{
+					return super.loadClass(className, resolve);
+				}
+				synchronized(getClassLoadingLock(className))
+				{
+					Class<?> type = findLoadedClass(className);
+					return type != null ? type : defineClass(className, code, 0, code.length);
+				}
+			}
+		};
+		Class<?> type = loader.loadClass(name);
+		assertNotSame(original, type);
+		return type;
+	}
+
+	// a support serialized by the original implementation, with a global listener
+	// and one on each of someField and someOtherField
+	private static final String ORIGINAL_FORM =
+			"rO0ABXNyACBrYXZhLmJlYW5zLlByb3BlcnR5Q2hhbmdlU3VwcG9ydFjV0mRXSGC7AwADSQAqcHJv" +
+			"cGVydHlDaGFuZ2VTdXBwb3J0U2VyaWFsaXplZERhdGFWZXJzaW9uTAAIY2hpbGRyZW50ABVMamF2" +
+			"YS91dGlsL0hhc2h0YWJsZTtMAAZzb3VyY2V0ABJMamF2YS9sYW5nL09iamVjdDt4cAAAAAFzcgAT" +
+			"amF2YS51dGlsLkhhc2h0YWJsZRO7DyUhSuS4AwACRgAKbG9hZEZhY3RvckkACXRocmVzaG9sZHhw" +
+			"P0AAAAAAAAh3CAAAAAsAAAACdAAJc29tZUZpZWxkc3EAfgAAAAAAAXNxAH4ABD9AAAAAAAAIdwgA" +
+			"AAALAAAAAHh0AAZzb3VyY2VzcgA+a2F2YS5iZWFucy50ZXN0LlByb3BlcnR5Q2hhbmdlU3VwcG9y" +
+			"dFRlc3QkU2VyaWFsaXphYmxlTGlzdGVuZXIAAAAAAAAAAQIAAUwABG5hbWV0ABJMamF2YS9sYW5n" +
+			"L1N0cmluZzt4cHQABW5hbWVkcHh0AA5zb21lT3RoZXJGaWVsZHNxAH4AAAAAAAFzcQB+AAQ/QAAA" +
+			"AAAACHcIAAAACwAAAAB4cQB+AAlzcQB+AAp0AAVvdGhlcnB4eHEAfgAJc3EAfgAKdAAGZ2xvYmFs" +
+			"cHg=";
+
+	@Test
+	public void testSerialization() throws Exception
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		PropertyChangeListener global = new SerializableListener("global");
+		support.addPropertyChangeListener(global);
+		support.addPropertyChangeListener(event -> fail());
+		support.addWeakPropertyChangeListener(global);
+		support.addPropertyChangeListener(someField, new SerializableListener("named"));
+		support.addPropertyChangeListener(someOtherField, event -> fail());
+
+		byte[] bytes = serialize(support);
+		// no nested support per property
+		assertFalse(contains(bytes, "java.util.Hashtable"));
+
+		PropertyChangeSupport copy = (PropertyChangeSupport) deserialize(bytes);
+		assertEquals("[global, someField:named]", describe(copy.getPropertyChangeListeners()));
+		assertEquals(0, copy.getPropertyChangeListeners(someOtherField).length);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		copy.addPropertyChangeListener(someField, events::add);
+		copy.firePropertyChange(someField, 1, 2);
+		assertEquals(source, events.get(0).getSource());
+	}
+
+	@Test
+	public void testReadOriginalForm() throws Exception
+	{
+		PropertyChangeSupport support = (PropertyChangeSupport) deserialize(Base64.getDecoder().decode(ORIGINAL_FORM));
+
+		assertEquals("[global, someField:named, someOtherField:other]", describe(support.getPropertyChangeListeners()));
+		assertEquals("[named]", Arrays.toString(support.getPropertyChangeListeners(someField)));
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		support.addPropertyChangeListener(someField, events::add);
+		support.firePropertyChange(someField, 1, 2);
+		assertEquals("source", events.get(0).getSource());
+	}
+
+	public static class SubSupport extends PropertyChangeSupport
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String extra;
+
+		public SubSupport(Object sourceBean, String extra)
+		{
+			super(sourceBean);
+			this.extra = extra;
+		}
+	}
+
+	@Test
+	public void testSubclassSerialization() throws Exception
+	{
+		SubSupport support = new SubSupport(source, "extra");
+		support.addPropertyChangeListener(new SerializableListener("global"));
+		support.addPropertyChangeListener(someField, new SerializableListener("named"));
+
+		SubSupport copy = (SubSupport) deserialize(serialize(support));
+		assertEquals("extra", copy.extra);
+		assertEquals("[global, someField:named]", describe(copy.getPropertyChangeListeners()));
+	}
+
+	@Test
+	public void testMalformedFormIsRejected() throws Exception
+	{
+		PropertyChangeSupport support = new PropertyChangeSupport(source);
+		support.addPropertyChangeListener(someField, new SerializableListener("named"));
+
+		assertRejected(support, new String[]{someField, someOtherField});
+		assertRejected(support, new String[]{null});
+		assertRejected(support, new PropertyChangeListener[][]{new PropertyChangeListener[]{null}});
+		assertRejected(support, new PropertyChangeListener[][]{null});
+	}
+
+	// serializes the support with its property names or listener arrays replaced
+	private static void assertRejected(PropertyChangeSupport support, Object replacement) throws Exception
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes)
+		{
+			{
+				enableReplaceObject(true);
+			}
+
+			@Override
+			protected Object replaceObject(Object object)
+			{
+				return object != null && object.getClass() == replacement.getClass() ? replacement : object;
+			}
+		};
+		out.writeObject(support);
+		out.close();
+
+		try
+		{
+			deserialize(bytes.toByteArray());
+			fail(Arrays.deepToString((Object[]) replacement));
+		}
+		catch(InvalidObjectException e)
+		{
+			// expected
+		}
+	}
+
+	public static class Bean implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final PropertyChangeSupport support = new PropertyChangeSupport(this);
+
+		public PropertyChangeSupport getSupport()
+		{
+			return support;
+		}
+	}
+
+	@Test
+	public void testSupportWrittenBeforeItsBean() throws Exception
+	{
+		Bean bean = new Bean();
+		bean.getSupport().addPropertyChangeListener(someField, new SerializableListener("named"));
+
+		PropertyChangeSupport support = (PropertyChangeSupport) deserialize(serialize(bean.getSupport()));
+		assertEquals("[named]", Arrays.toString(support.getPropertyChangeListeners(someField)));
+
+		Object[] copy = (Object[]) deserialize(serialize(new Object[]{bean.getSupport(), bean}));
+		Bean beanCopy = (Bean) copy[1];
+		assertSame(copy[0], beanCopy.getSupport());
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		beanCopy.getSupport().addPropertyChangeListener(events::add);
+		beanCopy.getSupport().firePropertyChange(someField, 1, 2);
+		assertSame(beanCopy, events.get(0).getSource());
+	}
+
+	@Test
+	public void testSerializationKeepsTheSource() throws Exception
+	{
+		Serializable bean = new ArrayList<String>();
+		PropertyChangeSupport support = new PropertyChangeSupport(bean);
+		support.addPropertyChangeListener(new SerializableListener("global"));
+
+		Object[] copy = (Object[]) deserialize(serialize(new Object[]{bean, support}));
+		PropertyChangeSupport supportCopy = (PropertyChangeSupport) copy[1];
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		supportCopy.addPropertyChangeListener(events::add);
+		supportCopy.firePropertyChange(someField, 1, 2);
+		assertSame(copy[0], events.get(0).getSource());
+	}
+
+	static byte[] serialize(Object object) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bytes);
+		out.writeObject(object);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try
+		{
+			return in.readObject();
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	private static boolean contains(byte[] bytes, String text)
+	{
+		return new String(bytes, StandardCharsets.ISO_8859_1).contains(text);
+	}
+
+	// the listeners sorted by name, the named ones prefixed by their property
+	private static String describe(PropertyChangeListener[] listeners)
+	{
+		List<String> names = new ArrayList<>();
+		for(PropertyChangeListener listener : listeners)
+		{
+			if(listener instanceof PropertyChangeListenerProxy)
+			{
+				PropertyChangeListenerProxy proxy = (PropertyChangeListenerProxy) listener;
+				names.add(proxy.getPropertyName() + ":" + proxy.getListener());
+			}
+			else
+			{
+				names.add(listener.toString());
+			}
+		}
+		Collections.sort(names);
+		return names.toString();
+	}
+
+	public static class SerializableListener implements PropertyChangeListener, VetoableChangeListener, Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final String name;
+
+		public SerializableListener(String name)
+		{
+			this.name = name;
+		}
+
+		@Override
+		public void propertyChange(PropertyChangeEvent event)
+		{
+		}
+
+		@Override
+		public void vetoableChange(PropertyChangeEvent event)
+		{
+		}
+
+		@Override
+		public String toString()
+		{
+			return name;
+		}
+	}
 }
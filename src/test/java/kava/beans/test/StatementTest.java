@@ -0,0 +1,371 @@
+package kava.beans.test;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import kava.beans.Expression;
+import kava.beans.Statement;
+
+public class StatementTest extends Assert
+{
+	public static class Target
+	{
+		public String describe(Object value)
+		{
+			return "object";
+		}
+
+		public String describe(String value)
+		{
+			return "string";
+		}
+
+		public String describe(int value)
+		{
+			return "int";
+		}
+	}
+
+	@Test
+	public void testRepeatedResolution() throws Exception
+	{
+		Target target = new Target();
+		for(int i = 0; i < 3; i++)
+		{
+			assertEquals("string", new Expression(target, "describe", new Object[]{"a"}).getValue());
+			assertEquals("int", new Expression(target, "describe", new Object[]{1}).getValue());
+			assertEquals("object", new Expression(target, "describe", new Object[]{1L}).getValue());
+
+			try
+			{
+				new Statement(target, "missing", new Object[]{"a"}).execute();
+				fail();
+			}
+			catch(NoSuchMethodException e)
+			{
+				// expected
+			}
+		}
+
+		List<Object> list = new ArrayList<>();
+		new Statement(list, "add", new Object[]{target}).execute();
+		new Statement(list, "add", new Object[]{null}).execute();
+		assertEquals(2, list.size());
+		assertNull(list.get(1));
+	}
+
+	@Test
+	public void testRepeatedConstruction() throws Exception
+	{
+		for(int i = 0; i < 3; i++)
+		{
+			assertEquals(Integer.valueOf(7), new Expression(Integer.class, "new", new Object[]{7}).getValue());
+			assertEquals("a", new Expression(String.class, "new", new Object[]{"a"}).getValue());
+
+			try
+			{
+				new Expression(Integer.class, "new", new Object[]{"x"}).getValue();
+				fail();
+			}
+			catch(NumberFormatException e)
+			{
+				// thrown by the constructor
+			}
+
+			try
+			{
+				new Expression(Integer.class, "new", new Object[]{new Object()}).getValue();
+				fail();
+			}
+			catch(NoSuchMethodException e)
+			{
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testPrimitiveArrays() throws Exception
+	{
+		int[] ints = new int[2];
+		new Statement(ints, "set", new Object[]{1, 5}).execute();
+		assertEquals(5, ints[1]);
+		assertEquals(5, new Expression(ints, "get", new Object[]{1}).getValue());
+
+		// widened like Array.set
+		long[] longs = new long[1];
+		new Statement(longs, "set", new Object[]{0, 3}).execute();
+		assertEquals(3L, longs[0]);
+
+		double[] doubles = new double[1];
+		new Statement(doubles, "set", new Object[]{0, 1.5}).execute();
+		assertEquals(1.5, new Expression(doubles, "get", new Object[]{0}).getValue());
+
+		try
+		{
+			new Statement(ints, "set", new Object[]{0, "x"}).execute();
+			fail();
+		}
+		catch(IllegalArgumentException e)
+		{
+			// expected
+		}
+
+		try
+		{
+			new Expression(ints, "get", new Object[]{2}).getValue();
+			fail();
+		}
+		catch(ArrayIndexOutOfBoundsException e)
+		{
+			// expected
+		}
+
+		Statement.Invoker invoker = new Statement(ints, "set", new Object[]{0, 1}).compile();
+		invoker.invoke(ints, 0, 9);
+		assertEquals(9, ints[0]);
+	}
+
+	@Test
+	public void testBulkArraySet() throws Exception
+	{
+		int[] ints = new int[5];
+		new Statement(ints, "set", new Object[]{1, 7, 8, 9}).execute();
+		assertArrayEquals(new int[]{0, 7, 8, 9, 0}, ints);
+
+		String[] strings = new String[3];
+		new Statement(strings, "set", new Object[]{0, "a", null, "c"}).execute();
+		assertArrayEquals(new String[]{"a", null, "c"}, strings);
+
+		try
+		{
+			new Statement(ints, "set", new Object[]{3, 1, 2, 3}).execute();
+			fail();
+		}
+		catch(ArrayIndexOutOfBoundsException e)
+		{
+			// nothing is written
+			assertArrayEquals(new int[]{0, 7, 8, 9, 0}, ints);
+		}
+
+		for(Object[] arguments : Arrays.asList(new Object[]{0, 1, "x"}, new Object[]{0, 1, null}, new Object[]{0, 1, 2L}))
+		{
+			try
+			{
+				new Statement(ints, "set", arguments).execute();
+				fail();
+			}
+			catch(IllegalArgumentException e)
+			{
+				// nothing is written
+				assertArrayEquals(new int[]{0, 7, 8, 9, 0}, ints);
+			}
+		}
+		try
+		{
+			new Statement(strings, "set", new Object[]{0, "b", 1}).execute();
+			fail();
+		}
+		catch(IllegalArgumentException e)
+		{
+			assertArrayEquals(new String[]{"a", null, "c"}, strings);
+		}
+
+		// widened like a single element
+		long[] longs = new long[2];
+		new Statement(longs, "set", new Object[]{0, 1, 'a'}).execute();
+		assertArrayEquals(new long[]{1, 'a'}, longs);
+
+		Statement.Invoker invoker = new Statement(ints, "set", new Object[]{0, 1, 2}).compile();
+		assertTrue(invoker.isCompiled());
+		invoker.invoke(ints, 3, 4, 5);
+		assertArrayEquals(new int[]{0, 7, 8, 4, 5}, ints);
+	}
+
+	@Test
+	public void testBulkArraySetAcceptsWhatArraySetAccepts() throws Exception
+	{
+		List<Class<?>> componentTypes = Arrays.asList(boolean.class, byte.class, short.class, char.class, int.class, long.class, float.class, double.class, String.class, Number.class, Object.class);
+		List<Object> values = Arrays.asList(true, (byte) 1, (short) 1, 'a', 1, 1L, 1f, 1d, "x", null, new Object());
+		for(Class<?> componentType : componentTypes)
+		{
+			for(Object value : values)
+			{
+				boolean accepted = true;
+				try
+				{
+					Array.set(Array.newInstance(componentType, 1), 0, value);
+				}
+				catch(IllegalArgumentException e)
+				{
+					accepted = false;
+				}
+
+				Object array = Array.newInstance(componentType, 2);
+				Object before = Array.get(array, 0);
+				try
+				{
+					new Statement(array, "set", new Object[]{0, value, value}).execute();
+					assertTrue(componentType + " " + value, accepted);
+					assertEquals(Array.get(array, 0), Array.get(array, 1));
+				}
+				catch(IllegalArgumentException e)
+				{
+					assertFalse(componentType + " " + value, accepted);
+					assertEquals(before, Array.get(array, 1));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCompile() throws Exception
+	{
+		Target target = new Target();
+		Statement.Invoker invoker = new Expression(target, "describe", new Object[]{"a"}).compile();
+		assertTrue(invoker.isCompiled());
+		assertSame(invoker, new Statement(new Target(), "describe", new Object[]{"b"}).compile());
+		assertEquals("string", invoker.invoke(target, "c"));
+		// another shape is executed like a statement
+		assertEquals("int", invoker.invoke(target, 1));
+
+		Statement.Invoker constructor = new Expression(StringBuilder.class, "new", new Object[]{"x"}).compile();
+		assertTrue(constructor.isCompiled());
+		assertEquals("yz", constructor.invoke(StringBuilder.class, "yz").toString());
+
+		Statement.Invoker parse = new Expression(Integer.class, "parseInt", new Object[]{"1"}).compile();
+		assertEquals(42, parse.invoke(Integer.class, "42"));
+		try
+		{
+			parse.invoke(Integer.class, "x");
+			fail();
+		}
+		catch(NumberFormatException e)
+		{
+			// expected
+		}
+
+		int[] array = new int[2];
+		Statement.Invoker set = new Statement(array, "set", new Object[]{0, 5}).compile();
+		set.invoke(array, 1, 7);
+		assertEquals(7, array[1]);
+		assertEquals(7, new Expression(array, "get", new Object[]{0}).compile().invoke(array, 1));
+
+		Statement.Invoker newArray = new Expression(String.class, "newArray", new Object[]{"a"}).compile();
+		assertFalse(newArray.isCompiled());
+		assertArrayEquals(new String[]{"b"}, (String[]) newArray.invoke(String.class, "b"));
+	}
+
+	public static class Failing
+	{
+		public Failing(String kind) throws Exception
+		{
+			fail(kind);
+		}
+
+		public static void fail(String kind) throws Exception
+		{
+			if(kind.equals("error"))
+			{
+				throw new StackOverflowError(kind);
+			}
+			throw new IOException(kind);
+		}
+	}
+
+	@Test
+	public void testCompiledInvokerThrowsLikeExecute() throws Exception
+	{
+		for(String kind : Arrays.asList("error", "exception"))
+		{
+			assertSameFailure(new Statement(Failing.class, "fail", new Object[]{kind}));
+			assertSameFailure(new Statement(Failing.class, "new", new Object[]{kind}));
+		}
+
+		Exception error = failure(new Statement(Failing.class, "fail", new Object[]{"error"}));
+		assertTrue(error instanceof InvocationTargetException);
+		assertTrue(error.getCause() instanceof StackOverflowError);
+	}
+
+	private static void assertSameFailure(Statement statement) throws Exception
+	{
+		Statement.Invoker invoker = statement.compile();
+		assertTrue(invoker.isCompiled());
+
+		Exception executed = failure(statement);
+		Exception invoked = null;
+		try
+		{
+			invoker.invoke(statement.getTarget(), statement.getArguments());
+		}
+		catch(Exception e)
+		{
+			invoked = e;
+		}
+		assertNotNull(invoked);
+		assertSame(executed.getClass(), invoked.getClass());
+		assertSame(String.valueOf(executed.getCause()), executed.getCause() == null ? null : executed.getCause().getClass(), invoked.getCause() == null ? null : invoked.getCause().getClass());
+	}
+
+	private static Exception failure(Statement statement)
+	{
+		try
+		{
+			statement.execute();
+		}
+		catch(Exception e)
+		{
+			return e;
+		}
+		fail(statement.toString());
+		return null;
+	}
+
+	public static class Argument
+	{
+	}
+
+	@Test
+	public void testCollectedArgumentClassesAreExpunged() throws Exception
+	{
+		Map<?, ?> methods = resolvedMethods(Target.class);
+		methods.clear();
+		WeakReference<Class<?>> argumentClass = describeIsolatedArgument();
+		assertTrue(methods.size() > 0);
+
+		// a later statement removes the key once the class is collected
+		for(int i = 0; i < 100 && (argumentClass.get() != null || methods.size() > 1); i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+			assertEquals("string", new Expression(new Target(), "describe", new Object[]{"a"}).getValue());
+		}
+		assertNull(argumentClass.get());
+		assertEquals(1, methods.size());
+	}
+
+	private static WeakReference<Class<?>> describeIsolatedArgument() throws Exception
+	{
+		Class<?> type = PropertyChangeSupportTest.isolate(Argument.class);
+		assertEquals("object", new Expression(new Target(), "describe", new Object[]{type.newInstance()}).getValue());
+		return new WeakReference<Class<?>>(type);
+	}
+
+	// the cache of the methods resolved for the class
+	@SuppressWarnings("unchecked")
+	private static Map<?, ?> resolvedMethods(Class<?> type) throws Exception
+	{
+		Field field = Statement.class.getDeclaredField("resolvedMethods");
+		field.setAccessible(true);
+		return ((ClassValue<Map<?, ?>>) field.get(null)).get(type);
+	}
+}
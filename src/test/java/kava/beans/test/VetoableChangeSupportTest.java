@@ -0,0 +1,155 @@
+package kava.beans.test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import kava.beans.IntPropertyChangeEvent;
+import kava.beans.PropertyChangeEvent;
+import kava.beans.PropertyVetoException;
+import kava.beans.VetoableChangeListener;
+import kava.beans.VetoableChangeListenerProxy;
+import kava.beans.VetoableChangeSupport;
+
+public class VetoableChangeSupportTest extends Assert
+{
+	private static final Object source = new String("source");
+
+	private static final String someField = "someField";
+
+	@Test
+	public void testRollbackOfNotifiedListeners() throws Exception
+	{
+		VetoableChangeSupport support = new VetoableChangeSupport(source);
+
+		List<String> calls = new ArrayList<>();
+		support.addVetoableChangeListener(event -> calls.add("global " + event.getNewValue()));
+		support.addVetoableChangeListener(someField, event -> calls.add("first " + event.getNewValue()));
+		support.addVetoableChangeListener(someField, event ->
+		{
+			calls.add("veto " + event.getNewValue());
+			if(((IntPropertyChangeEvent) event).getIntNewValue() == 2)
+			{
+				throw new PropertyVetoException("no", event);
+			}
+		});
+		support.addVetoableChangeListener(someField, event -> calls.add("last " + event.getNewValue()));
+
+		try
+		{
+			support.fireVetoableChange(someField, 1, 2);
+			fail();
+		}
+		catch(PropertyVetoException e)
+		{
+			// expected
+		}
+		assertEquals(Arrays.asList("global 2", "first 2", "veto 2", "global 1", "first 1"), calls);
+
+		calls.clear();
+		support.fireVetoableChange(someField, 1, 1);
+		assertTrue(calls.isEmpty());
+		support.propertyKey(someField).fireVetoableChange(2, 3);
+		assertEquals(Arrays.asList("global 3", "first 3", "veto 3", "last 3"), calls);
+	}
+
+	@Test
+	public void testPrimitiveEvents() throws Exception
+	{
+		VetoableChangeSupport support = new VetoableChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		VetoableChangeListener listener = events::add;
+		support.addVetoableChangeListener(listener);
+		support.fireVetoableChange(someField, 1, 2);
+		support.fireVetoableChange(someField, true, false);
+		support.fireVetoableChange(someField, false, false);
+
+		assertEquals(2, events.size());
+		assertEquals(2, ((IntPropertyChangeEvent) events.get(0)).getIntNewValue());
+		assertEquals(Boolean.FALSE, events.get(1).getNewValue());
+
+		support.removeVetoableChangeListener(listener);
+		assertFalse(support.hasListeners(someField));
+	}
+
+	@Test
+	public void testReferenceListeners() throws Exception
+	{
+		VetoableChangeSupport support = new VetoableChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		VetoableChangeListener listener = events::add;
+		support.addWeakVetoableChangeListener(listener);
+		support.addSoftVetoableChangeListener(someField, listener);
+		assertArrayEquals(new VetoableChangeListener[]{listener}, support.getVetoableChangeListeners(someField));
+		assertSame(listener, support.getVetoableChangeListeners()[0]);
+
+		support.fireVetoableChange(someField, 1, 2);
+		assertEquals(2, events.size());
+
+		support.removeVetoableChangeListener(listener);
+		support.removeVetoableChangeListener(someField, listener);
+		assertFalse(support.hasListeners(someField));
+		assertEquals(0, support.getVetoableChangeListeners().length);
+	}
+
+	@Test
+	public void testCollectedListenerIsPurged() throws Exception
+	{
+		VetoableChangeSupport support = new VetoableChangeSupport(source);
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		addCollectable(support, events);
+		support.fireVetoableChange(someField, 1, 2);
+		assertEquals(1, events.size());
+
+		for(int i = 0; i < 100 && support.hasListeners(someField); i++)
+		{
+			System.gc();
+			Thread.sleep(10);
+			support.fireVetoableChange(someField, 2, 3);
+		}
+		assertFalse(support.hasListeners(someField));
+		assertEquals(1, events.size());
+	}
+
+	// registers a listener which nothing else references, not a lambda
+	private static void addCollectable(VetoableChangeSupport support, List<PropertyChangeEvent> events)
+	{
+		support.addWeakVetoableChangeListener(someField, new VetoableChangeListener()
+		{
+			@Override
+			public void vetoableChange(PropertyChangeEvent event)
+			{
+				events.add(event);
+			}
+		});
+	}
+
+	@Test
+	public void testSerialization() throws Exception
+	{
+		Serializable bean = new ArrayList<String>();
+		VetoableChangeSupport support = new VetoableChangeSupport(bean);
+		support.addVetoableChangeListener(new PropertyChangeSupportTest.SerializableListener("global"));
+		support.addVetoableChangeListener(event -> fail());
+		support.addVetoableChangeListener(someField, new PropertyChangeSupportTest.SerializableListener("named"));
+
+		Object[] copy = (Object[]) PropertyChangeSupportTest.deserialize(PropertyChangeSupportTest.serialize(new Object[]{bean, support}));
+		VetoableChangeSupport supportCopy = (VetoableChangeSupport) copy[1];
+		VetoableChangeListener[] listeners = supportCopy.getVetoableChangeListeners();
+		assertEquals(2, listeners.length);
+		assertEquals("global", listeners[0].toString());
+		assertEquals(someField, ((VetoableChangeListenerProxy) listeners[1]).getPropertyName());
+		assertEquals("[named]", Arrays.toString(supportCopy.getVetoableChangeListeners(someField)));
+
+		List<PropertyChangeEvent> events = new ArrayList<>();
+		supportCopy.addVetoableChangeListener(events::add);
+		supportCopy.fireVetoableChange(someField, 1, 2);
+		assertSame(copy[0], events.get(0).getSource());
+	}
+}
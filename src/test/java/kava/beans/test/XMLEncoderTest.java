@@ -0,0 +1,123 @@
+package kava.beans.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Assert;
+import org.junit.Test;
+import kava.beans.DefaultPersistenceDelegate;
+import kava.beans.XMLDecoder;
+import kava.beans.XMLEncoder;
+
+public class XMLEncoderTest extends Assert
+{
+	public static class Point
+	{
+		private final int x;
+
+		private final String label;
+
+		public Point(int x, String label)
+		{
+			this.x = x;
+			this.label = label;
+		}
+
+		public int getX()
+		{
+			return x;
+		}
+
+		public String getLabel()
+		{
+			return label;
+		}
+	}
+
+	@Test
+	public void testConstructorProperties() throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XMLEncoder encoder = new XMLEncoder(out);
+		encoder.setPersistenceDelegate(Point.class, new DefaultPersistenceDelegate(new String[]{"x", "label"}));
+		encoder.writeObject(new Point(7, "seven"));
+		encoder.close();
+
+		Point point = (Point) decode(out);
+		assertEquals(7, point.getX());
+		assertEquals("seven", point.getLabel());
+	}
+
+	@Test
+	public void testArrays() throws Exception
+	{
+		for(boolean bulk : new boolean[]{false, true})
+		{
+			int[] ints = {1, 2, 0, 0, 5, -6};
+			assertArrayEquals(ints, (int[]) roundTrip(ints, bulk));
+
+			double[] doubles = {-0.0, Double.NaN, 0.0, 1.5, Double.NEGATIVE_INFINITY};
+			double[] doublesCopy = (double[]) roundTrip(doubles, bulk);
+			assertEquals(doubles.length, doublesCopy.length);
+			for(int i = 0; i < doubles.length; i++)
+			{
+				assertEquals(Double.doubleToLongBits(doubles[i]), Double.doubleToLongBits(doublesCopy[i]));
+			}
+
+			char[] chars = {'a', '<', '&', '"', '\u00e9', 'z'};
+			assertArrayEquals(chars, (char[]) roundTrip(chars, bulk));
+
+			Object[] objects = {null, "a", "b", null, null, Integer.valueOf(3), null};
+			assertArrayEquals(objects, (Object[]) roundTrip(objects, bulk));
+		}
+	}
+
+	@Test
+	public void testBulkArrayStatementsAreOptIn() throws Exception
+	{
+		int[] ints = {1, 2, 3, 0, 5};
+		assertEquals(4, count(encode(ints, false), "index="));
+		assertEquals(2, count(encode(ints, true), "index="));
+		assertFalse(new XMLEncoder(new ByteArrayOutputStream()).isBulkArrayStatements());
+	}
+
+	private static Object roundTrip(Object object, boolean bulk)
+	{
+		return decode(encode(object, bulk));
+	}
+
+	private static ByteArrayOutputStream encode(Object object, boolean bulk)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XMLEncoder encoder = new XMLEncoder(out);
+		encoder.setBulkArrayStatements(bulk);
+		encoder.writeObject(object);
+		encoder.close();
+		return out;
+	}
+
+	private static int count(ByteArrayOutputStream out, String text)
+	{
+		String xml = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		int count = 0;
+		for(int i = xml.indexOf(text); i >= 0; i = xml.indexOf(text, i + 1))
+		{
+			count++;
+		}
+		return count;
+	}
+
+	private static Object decode(ByteArrayOutputStream out)
+	{
+		XMLDecoder decoder = new XMLDecoder(new ByteArrayInputStream(out.toByteArray()));
+		try
+		{
+			return decoder.readObject();
+		}
+		finally
+		{
+			decoder.close();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package kava.beans.test.benchmark;
+
+import java.lang.reflect.Array;
+
+import kava.beans.Expression;
+import kava.beans.Statement;
+
+/**
+ * Measures the "get" and "set" statements on primitive arrays, as executed by the XMLDecoder for the
+ * elements of an array, next to the Array.get and Array.set calls they used to make for every element.
+ */
+public class ArrayElementBenchmark
+{
+	private static final int LENGTH = 1000;
+
+	private static final int RUNS = 200;
+
+	private static Object sink;
+
+	public static void main(String[] args) throws Exception
+	{
+		int[] ints = new int[LENGTH];
+		double[] doubles = new double[LENGTH];
+		Integer[] intValues = new Integer[LENGTH];
+		Double[] doubleValues = new Double[LENGTH];
+		for(int i = 0; i < LENGTH; i++)
+		{
+			intValues[i] = 1000 + i;
+			doubleValues[i] = i + 0.5;
+		}
+
+		compare("int[]", ints, intValues);
+		compare("double[]", doubles, doubleValues);
+	}
+
+	private static void compare(String name, Object array, Object[] values) throws Exception
+	{
+		long statementGet = Benchmarks.bestOf(RUNS, () -> {
+			for(int i = 0; i < LENGTH; i++)
+			{
+				sink = new Expression(array, "get", new Object[]{i}).getValue();
+			}
+		});
+		long arrayGet = Benchmarks.bestOf(RUNS, () -> {
+			for(int i = 0; i < LENGTH; i++)
+			{
+				sink = Array.get(array, i);
+			}
+		});
+		long statementSet = Benchmarks.bestOf(RUNS, () -> {
+			for(int i = 0; i < LENGTH; i++)
+			{
+				new Statement(array, "set", new Object[]{i, values[i]}).execute();
+			}
+		});
+		long arraySet = Benchmarks.bestOf(RUNS, () -> {
+			for(int i = 0; i < LENGTH; i++)
+			{
+				Array.set(array, i, values[i]);
+			}
+		});
+		Benchmarks.report(name + " Expression get", statementGet, LENGTH);
+		Benchmarks.report(name + " Array.get", arrayGet, LENGTH);
+		Benchmarks.report(name + " Statement set", statementSet, LENGTH);
+		Benchmarks.report(name + " Array.set", arraySet, LENGTH);
+	}
+}
@@ -0,0 +1,122 @@
+package kava.beans.test.benchmark;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import kava.beans.Introspector;
+
+/**
+ * Compares the cold introspection of bean classes with and without a BeanInfo snapshot. Each round loads
+ * the generated classes by a new class loader, so that neither the introspector nor the reflection of
+ * the runtime has seen them before, like after a restart.
+ */
+public class BeanInfoSnapshotBenchmark
+{
+	private static final int CLASSES = 300;
+
+	private static final int ROUNDS = 15;
+
+	public static void main(String[] args) throws Exception
+	{
+		Path dir = generate();
+		File snapshot = File.createTempFile("beaninfo", ".snapshot");
+		try
+		{
+			URLClassLoader first = new URLClassLoader(new URL[]{dir.toUri().toURL()});
+			Introspector.writeBeanInfoSnapshot(snapshot, load(first));
+			System.out.println("snapshot of " + CLASSES + " classes: " + snapshot.length() + " bytes");
+
+			long reflected = Long.MAX_VALUE;
+			long indexed = Long.MAX_VALUE;
+			for(int round = 0; round < ROUNDS; round++)
+			{
+				Introspector.setBeanInfoSnapshot(null);
+				reflected = Math.min(reflected, introspect(dir));
+				Introspector.setBeanInfoSnapshot(snapshot);
+				indexed = Math.min(indexed, introspect(dir));
+				Introspector.flushCaches();
+			}
+			Benchmarks.report("cold getBeanInfo, reflection", reflected, CLASSES);
+			Benchmarks.report("cold getBeanInfo, snapshot", indexed, CLASSES);
+		}
+		finally
+		{
+			Introspector.setBeanInfoSnapshot(null);
+			snapshot.delete();
+		}
+	}
+
+	// the time taken to introspect the classes loaded by a new loader
+	private static long introspect(Path dir) throws Exception
+	{
+		List<Class<?>> classes = load(new URLClassLoader(new URL[]{dir.toUri().toURL()}));
+		long start = System.nanoTime();
+		for(Class<?> type : classes)
+		{
+			Introspector.getBeanInfo(type).getPropertyDescriptors();
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static List<Class<?>> load(ClassLoader loader) throws Exception
+	{
+		List<Class<?>> classes = new ArrayList<>();
+		for(int i = 0; i < CLASSES; i++)
+		{
+			classes.add(Class.forName("bench.Bean" + i, true, loader));
+		}
+		return classes;
+	}
+
+	// beans with ten properties and twenty other public methods each
+	private static Path generate() throws Exception
+	{
+		Path dir = Files.createTempDirectory("beans");
+		List<File> sources = new ArrayList<>();
+		for(int i = 0; i < CLASSES; i++)
+		{
+			StringBuilder source = new StringBuilder("package bench;\npublic class Bean" + i + " {\n");
+			for(int p = 0; p < 10; p++)
+			{
+				source.append("  private String value").append(p).append(";\n");
+				source.append("  public String getValue").append(p).append("() { return value").append(p).append("; }\n");
+				source.append("  public void setValue").append(p).append("(String v) { value").append(p).append(" = v; }\n");
+			}
+			for(int m = 0; m < 20; m++)
+			{
+				source.append("  public int compute").append(m).append("(int a, int b) { return a * ").append(m).append(" + b; }\n");
+			}
+			source.append("}\n");
+			Path file = dir.resolve("bench/Bean" + i + ".java");
+			Files.createDirectories(file.getParent());
+			Files.write(file, source.toString().getBytes(StandardCharsets.UTF_8));
+			sources.add(file.toFile());
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+		try
+		{
+			if(!compiler.getTask(null, fileManager, null, Arrays.asList("-proc:none", "-d", dir.toString()), null, fileManager.getJavaFileObjectsFromFiles(sources)).call())
+			{
+				throw new IllegalStateException("the beans do not compile");
+			}
+		}
+		finally
+		{
+			fileManager.close();
+		}
+		return dir;
+	}
+}
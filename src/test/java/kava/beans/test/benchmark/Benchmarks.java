@@ -0,0 +1,42 @@
+package kava.beans.test.benchmark;
+
+/**
+ * Timing helpers of the benchmarks. The benchmarks are not tests, they are run by their main method
+ * with the test classpath and print their results.
+ */
+final class Benchmarks
+{
+	interface Body
+	{
+		void run() throws Exception;
+	}
+
+	private Benchmarks()
+	{
+	}
+
+	/**
+	 * Runs the body the given number of times after as many warm-up runs and answers the fastest run in
+	 * nanoseconds.
+	 */
+	static long bestOf(int runs, Body body) throws Exception
+	{
+		for(int i = 0; i < runs; i++)
+		{
+			body.run();
+		}
+		long best = Long.MAX_VALUE;
+		for(int i = 0; i < runs; i++)
+		{
+			long start = System.nanoTime();
+			body.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+
+	static void report(String name, long nanos, int operations)
+	{
+		System.out.printf("%-40s %10.1f us %10.1f ns/op%n", name, nanos / 1000.0, (double) nanos / operations);
+	}
+}
@@ -0,0 +1,68 @@
+package kava.beans.test.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import kava.beans.XMLDecoder;
+import kava.beans.XMLEncoder;
+
+/**
+ * Compares the XML written for a large int array with one statement per element, the default, and with
+ * the bulk array statements of XMLEncoder.setBulkArrayStatements, and the time taken to encode and to
+ * decode it.
+ */
+public class BulkArrayBenchmark
+{
+	private static final int LENGTH = 10000;
+
+	private static final int RUNS = 3;
+
+	private static Object sink;
+
+	public static void main(String[] args) throws Exception
+	{
+		int[] array = new int[LENGTH];
+		for(int i = 0; i < LENGTH; i++)
+		{
+			array[i] = i * 31 + 1;
+		}
+		for(boolean bulk : new boolean[]{false, true})
+		{
+			byte[] xml = encode(array, bulk);
+			if(!Arrays.equals(array, (int[]) decode(xml)))
+			{
+				throw new IllegalStateException("the array does not survive the round trip");
+			}
+			String name = bulk ? "bulk" : "per element";
+			long encoding = Benchmarks.bestOf(RUNS, () -> sink = encode(array, bulk));
+			long decoding = Benchmarks.bestOf(RUNS, () -> sink = decode(xml));
+			System.out.printf("%-40s %10d bytes%n", name + " size", xml.length);
+			Benchmarks.report(name + " encode", encoding, LENGTH);
+			Benchmarks.report(name + " decode", decoding, LENGTH);
+		}
+	}
+
+	private static byte[] encode(Object object, boolean bulk)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		XMLEncoder encoder = new XMLEncoder(out);
+		encoder.setBulkArrayStatements(bulk);
+		encoder.writeObject(object);
+		encoder.close();
+		return out.toByteArray();
+	}
+
+	private static Object decode(byte[] xml)
+	{
+		XMLDecoder decoder = new XMLDecoder(new ByteArrayInputStream(xml));
+		try
+		{
+			return decoder.readObject();
+		}
+		finally
+		{
+			decoder.close();
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package kava.beans.test.benchmark;
+
+import java.lang.reflect.Constructor;
+
+import kava.beans.Expression;
+
+/**
+ * Measures the creation of a bean by a "new" expression, as the XMLDecoder does for each object element.
+ * The expression resolves its constructor once per class and argument classes. For comparison, the
+ * benchmark also measures what every creation cost before: scanning the public constructors for one
+ * accepting the arguments and calling it by reflection, and the reflective call alone.
+ */
+public class StatementConstructorBenchmark
+{
+	private static final int OPERATIONS = 100000;
+
+	private static final int RUNS = 20;
+
+	public static class Point
+	{
+		public Point()
+		{
+		}
+
+		public Point(String name)
+		{
+		}
+
+		public Point(int x, int y)
+		{
+		}
+
+		public Point(Integer x, Integer y, String name)
+		{
+		}
+	}
+
+	private static Object sink;
+
+	public static void main(String[] args) throws Exception
+	{
+		Object[] arguments = {1, 2, "p"};
+		Constructor<?> known = Point.class.getConstructor(Integer.class, Integer.class, String.class);
+
+		long expression = Benchmarks.bestOf(RUNS, () -> {
+			for(int i = 0; i < OPERATIONS; i++)
+			{
+				sink = new Expression(Point.class, "new", arguments).getValue();
+			}
+		});
+		long scanned = Benchmarks.bestOf(RUNS, () -> {
+			for(int i = 0; i < OPERATIONS; i++)
+			{
+				sink = scan(Point.class, arguments).newInstance(arguments);
+			}
+		});
+		long reflected = Benchmarks.bestOf(RUNS, () -> {
+			for(int i = 0; i < OPERATIONS; i++)
+			{
+				sink = known.newInstance(arguments);
+			}
+		});
+		Benchmarks.report("Expression new", expression, OPERATIONS);
+		Benchmarks.report("constructor scan + newInstance", scanned, OPERATIONS);
+		Benchmarks.report("newInstance", reflected, OPERATIONS);
+	}
+
+	// the lookup done for every creation before the constructors were cached
+	private static Constructor<?> scan(Class<?> type, Object[] arguments) throws NoSuchMethodException
+	{
+		for(Constructor<?> constructor : type.getConstructors())
+		{
+			Class<?>[] parameterTypes = constructor.getParameterTypes();
+			if(parameterTypes.length != arguments.length)
+			{
+				continue;
+			}
+			boolean found = true;
+			for(int i = 0; i < parameterTypes.length && found; i++)
+			{
+				found = arguments[i] == null ? !parameterTypes[i].isPrimitive() : parameterTypes[i].isInstance(arguments[i]);
+			}
+			if(found)
+			{
+				return constructor;
+			}
+		}
+		throw new NoSuchMethodException(type.getName());
+	}
+}